@@ -3,9 +3,11 @@ package uk.co.nationalninesgolf.api;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableAsync
+@EnableScheduling
 public class NationalNinesApiApplication {
     public static void main(String[] args) {
         SpringApplication.run(NationalNinesApiApplication.class, args);
@@ -0,0 +1,79 @@
+package uk.co.nationalninesgolf.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Short-lived tokens for the admin dashboard stream.
+ * A browser EventSource can't send X-API-Key, so the dashboard asks for a token with the key and
+ * opens the stream with ?token=... instead - the key itself never goes into a URL or access log.
+ * Tokens are signed with the admin API key, so any instance accepts them.
+ */
+@Component
+public class AdminStreamTokens {
+    
+    private static final String HMAC = "HmacSHA256";
+    private static final String PURPOSE = "dashboard-stream";
+    
+    private final String adminApiKey;
+    private final Duration ttl;
+    
+    public AdminStreamTokens(@Value("${app.admin-api-key:}") String adminApiKey,
+                             @Value("${app.live.stream-token-ttl:PT15M}") Duration ttl) {
+        this.adminApiKey = adminApiKey;
+        this.ttl = ttl;
+    }
+    
+    public record Issued(String token, Instant expiresAt) {
+    }
+    
+    /**
+     * expiryEpochSeconds.base64url(HMAC-SHA256 of purpose and expiry)
+     */
+    public Issued issue() {
+        Instant expiresAt = Instant.now().plus(ttl);
+        String expiry = Long.toString(expiresAt.getEpochSecond());
+        String signature = Base64.getUrlEncoder().withoutPadding().encodeToString(sign(expiry));
+        return new Issued(expiry + "." + signature, expiresAt);
+    }
+    
+    public boolean verify(String token) {
+        if (token == null || adminApiKey.isEmpty()) {
+            return false;
+        }
+        String[] parts = token.split("\\.");
+        if (parts.length != 2) {
+            return false;
+        }
+        try {
+            byte[] signature = Base64.getUrlDecoder().decode(parts[1]);
+            return MessageDigest.isEqual(sign(parts[0]), signature)
+                && Instant.now().getEpochSecond() <= Long.parseLong(parts[0]);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+    
+    private byte[] sign(String expiry) {
+        if (adminApiKey.isEmpty()) {
+            // Development mode - admin endpoints are open and the token is never checked
+            return new byte[0];
+        }
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(new SecretKeySpec(adminApiKey.getBytes(StandardCharsets.UTF_8), HMAC));
+            return mac.doFinal((PURPOSE + "." + expiry).getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign stream token", e);
+        }
+    }
+}
@@ -39,7 +39,7 @@ public class CorsConfig {
         config.setAllowCredentials(true);
         
         // Expose response headers
-        config.setExposedHeaders(Arrays.asList("X-Total-Count", "Link"));
+        config.setExposedHeaders(Arrays.asList("X-Total-Count", "Link", "Idempotent-Replayed"));
         
         // Max age for preflight cache (1 hour)
         config.setMaxAge(3600L);
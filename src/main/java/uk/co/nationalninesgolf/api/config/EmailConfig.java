@@ -0,0 +1,49 @@
+package uk.co.nationalninesgolf.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Worker pool for the email outbox.
+ * Platform threads by default; a virtual thread per send when spring.threads.virtual.enabled is set.
+ */
+@Configuration
+public class EmailConfig {
+    
+    @Value("${app.email.workers:4}")
+    private int workers;
+    
+    @Value("${app.email.batch-size:20}")
+    private int batchSize;
+    
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public TaskExecutor emailExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        // The poller never has more than one batch in flight
+        executor.setQueueCapacity(batchSize);
+        executor.setThreadNamePrefix("email-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+    
+    @Bean(name = "emailExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public TaskExecutor virtualEmailExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("email-");
+        executor.setVirtualThreads(true);
+        // Still bounded - SMTP servers throttle concurrent connections
+        executor.setConcurrencyLimit(workers);
+        executor.setTaskTerminationTimeout(30_000);
+        return executor;
+    }
+}
@@ -0,0 +1,78 @@
+package uk.co.nationalninesgolf.api.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache for entries, orders and order items.
+ * Each region is a bounded Caffeine cache handed to Hibernate through JCache, with hit/miss
+ * metrics under cache.gets. Entries expire after ttl, which bounds how long anything an
+ * invalidation misses can be served - see EntityCacheInvalidator for the multi-instance side.
+ * Entries and orders change status after they are cached, so their regions use the shorter
+ * mutable-ttl; order numbers and items don't change once written.
+ */
+@Configuration
+public class EntityCacheConfig {
+    
+    // Must match the regions named on the entities
+    private static final List<String> REGIONS = List.of(
+        "entries", "orders", "orders-by-number", "order-items", "order-items-by-order");
+    
+    private static final Set<String> MUTABLE_REGIONS = Set.of("entries", "orders");
+    
+    @Value("${app.entity-cache.max-size:10000}")
+    private long maxSize;
+    
+    @Value("${app.entity-cache.ttl:PT10M}")
+    private Duration ttl;
+    
+    @Value("${app.entity-cache.mutable-ttl:PT30S}")
+    private Duration mutableTtl;
+    
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(MeterRegistry meterRegistry) {
+        // Own manager per application context - the provider's default one is shared JVM-wide
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+            .getCacheManager(URI.create("entity-cache:" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String region : REGIONS) {
+            CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+            config.setMaximumSize(OptionalLong.of(maxSize));
+            Duration expiry = MUTABLE_REGIONS.contains(region) ? mutableTtl : ttl;
+            config.setExpireAfterWrite(OptionalLong.of(expiry.toNanos()));
+            config.setStatisticsEnabled(true);
+            
+            Cache<Object, Object> cache = cacheManager.createCache(region, config);
+            JCacheMetrics.monitor(meterRegistry, cache);
+        }
+        return cacheManager;
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+            // A region missing from REGIONS is a mapping mistake, not something to paper over
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+}
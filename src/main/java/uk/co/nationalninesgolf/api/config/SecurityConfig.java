@@ -1,5 +1,6 @@
 package uk.co.nationalninesgolf.api.config;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,14 +9,18 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Security configuration for the API
@@ -30,11 +35,13 @@ public class SecurityConfig {
     private String adminApiKey;
     
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, AdminStreamTokens streamTokens) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Async dispatches (streamed responses) were authorized on the original request
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                 // Public endpoints
                 .requestMatchers("/api/entries/**").permitAll()
                 .requestMatchers("/api/orders/**").permitAll()
@@ -45,7 +52,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/admin/**").authenticated()
                 .anyRequest().permitAll()
             )
-            .addFilterBefore(new ApiKeyAuthFilter(adminApiKey), UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(new ApiKeyAuthFilter(adminApiKey, streamTokens), UsernamePasswordAuthenticationFilter.class);
         
         // Allow H2 console frames
         http.headers(headers -> headers.frameOptions(frame -> frame.disable()));
@@ -54,14 +61,20 @@ public class SecurityConfig {
     }
     
     /**
-     * Simple API key filter for admin endpoints
+     * Simple API key filter for admin endpoints.
+     * The dashboard stream also takes a short-lived ?token= (see AdminStreamTokens), since a
+     * browser EventSource can't send the X-API-Key header.
      */
     static class ApiKeyAuthFilter extends OncePerRequestFilter {
         
+        private static final String DASHBOARD_STREAM = "/api/admin/dashboard/stream";
+        
         private final String apiKey;
+        private final AdminStreamTokens streamTokens;
         
-        public ApiKeyAuthFilter(String apiKey) {
+        public ApiKeyAuthFilter(String apiKey, AdminStreamTokens streamTokens) {
             this.apiKey = apiKey;
+            this.streamTokens = streamTokens;
         }
         
         @Override
@@ -76,18 +89,23 @@ public class SecurityConfig {
                 String providedKey = request.getHeader("X-API-Key");
                 
                 // If no API key configured, allow access (for development)
-                if (apiKey == null || apiKey.isEmpty()) {
-                    filterChain.doFilter(request, response);
-                    return;
-                }
+                boolean open = apiKey == null || apiKey.isEmpty();
+                
+                boolean keyValid = providedKey != null && providedKey.equals(apiKey);
+                boolean streamTokenValid = path.equals(DASHBOARD_STREAM)
+                    && streamTokens.verify(request.getParameter("token"));
                 
                 // Check API key
-                if (providedKey == null || !providedKey.equals(apiKey)) {
+                if (!open && !keyValid && !streamTokenValid) {
                     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                     response.setContentType("application/json");
                     response.getWriter().write("{\"error\":\"Invalid or missing API key\"}");
                     return;
                 }
+                
+                // Authenticate the request so .authenticated() admin rules pass
+                SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    "admin", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
             }
             
             filterChain.doFilter(request, response);
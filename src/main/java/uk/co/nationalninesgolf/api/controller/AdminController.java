@@ -1,18 +1,31 @@
 package uk.co.nationalninesgolf.api.controller;
 
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uk.co.nationalninesgolf.api.config.AdminStreamTokens;
+import uk.co.nationalninesgolf.api.model.CompetitionEvent;
 import uk.co.nationalninesgolf.api.model.Entry;
 import uk.co.nationalninesgolf.api.model.Order;
+import uk.co.nationalninesgolf.api.service.DashboardService;
 import uk.co.nationalninesgolf.api.service.EntryService;
+import uk.co.nationalninesgolf.api.service.EventCatalog;
+import uk.co.nationalninesgolf.api.service.EventInfo;
+import uk.co.nationalninesgolf.api.service.ExportService;
+import uk.co.nationalninesgolf.api.service.LiveStatsService;
 import uk.co.nationalninesgolf.api.service.OrderService;
 
-import java.math.BigDecimal;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Admin endpoints for managing entries and orders
@@ -26,6 +39,11 @@ public class AdminController {
     
     private final EntryService entryService;
     private final OrderService orderService;
+    private final DashboardService dashboardService;
+    private final ExportService exportService;
+    private final LiveStatsService liveStatsService;
+    private final EventCatalog eventCatalog;
+    private final AdminStreamTokens streamTokens;
     
     // ========== ENTRIES ==========
     
@@ -37,6 +55,17 @@ public class AdminController {
         return ResponseEntity.ok(entryService.findAll());
     }
     
+    /**
+     * Stream all entries (optionally for one event) as CSV or NDJSON
+     */
+    @GetMapping("/entries/export")
+    public ResponseEntity<StreamingResponseBody> exportEntries(
+            @RequestParam(required = false) String event,
+            @RequestParam(defaultValue = "csv") String format) {
+        return export("entries", format,
+            exportFormat -> out -> exportService.exportEntries(event, exportFormat, out));
+    }
+    
     /**
      * Get entries for a specific event
      */
@@ -50,8 +79,10 @@ public class AdminController {
      */
     @PostMapping("/entries/{id}/mark-paid")
     public ResponseEntity<Entry> markEntryAsPaid(@PathVariable Long id) {
-        Entry updated = entryService.markAsPaid(id, "MANUAL_PAYMENT");
-        return ResponseEntity.ok(updated);
+        return entryService.markAsPaid(id, "MANUAL_PAYMENT")
+            .or(() -> entryService.findById(id))
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
     }
     
     // ========== ORDERS ==========
@@ -64,6 +95,17 @@ public class AdminController {
         return ResponseEntity.ok(orderService.findAll());
     }
     
+    /**
+     * Stream all orders with their items (optionally for one status) as CSV or NDJSON
+     */
+    @GetMapping("/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) Order.OrderStatus status,
+            @RequestParam(defaultValue = "csv") String format) {
+        return export("orders", format,
+            exportFormat -> out -> exportService.exportOrders(status, exportFormat, out));
+    }
+    
     /**
      * Get orders by status
      */
@@ -96,41 +138,80 @@ public class AdminController {
      */
     @PostMapping("/orders/{id}/mark-paid")
     public ResponseEntity<Order> markOrderAsPaid(@PathVariable Long id) {
-        Order updated = orderService.markAsPaid(id, "MANUAL_PAYMENT");
-        return ResponseEntity.ok(updated);
+        return orderService.markAsPaid(id, "MANUAL_PAYMENT")
+            .or(() -> orderService.findWithItemsById(id))
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+    
+    private ResponseEntity<StreamingResponseBody> export(String name, String format,
+                                                         Function<ExportService.Format, StreamingResponseBody> body) {
+        ExportService.Format exportFormat;
+        try {
+            exportFormat = ExportService.Format.of(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        }
+        
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(exportFormat.contentType))
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + name + "." + exportFormat.extension + "\"")
+            .body(body.apply(exportFormat));
+    }
+    
+    // ========== EVENTS ==========
+    
+    /**
+     * Event catalog, including events closed to entries
+     */
+    @GetMapping("/events")
+    public ResponseEntity<List<EventInfo>> getEvents() {
+        return ResponseEntity.ok(eventCatalog.all());
+    }
+    
+    /**
+     * Add or update an event - takes effect immediately on this instance, and on others at their next reload
+     */
+    @PutMapping("/events/{code}")
+    public ResponseEntity<EventInfo> saveEvent(@PathVariable String code, @Valid @RequestBody CompetitionEvent event) {
+        event.setCode(code);
+        return ResponseEntity.ok(eventCatalog.save(event));
+    }
+    
+    /**
+     * Reload the catalog after editing the events table directly
+     */
+    @PostMapping("/events/reload")
+    public ResponseEntity<List<EventInfo>> reloadEvents() {
+        eventCatalog.reload();
+        return ResponseEntity.ok(eventCatalog.all());
     }
     
     // ========== DASHBOARD ==========
     
     /**
-     * Dashboard statistics
+     * Dashboard statistics (cached snapshot - see DashboardService)
      */
     @GetMapping("/dashboard")
     public ResponseEntity<Map<String, Object>> getDashboard() {
-        Map<String, Object> stats = new HashMap<>();
-        
-        // Entry stats
-        stats.put("kentNinesEntries", entryService.countPaidEntries("KENT_NINES_2026"));
-        stats.put("essexNinesEntries", entryService.countPaidEntries("ESSEX_NINES_2026"));
-        
-        // Order stats
-        stats.put("pendingOrders", orderService.countByStatus(Order.OrderStatus.PENDING));
-        stats.put("paidOrders", orderService.countByStatus(Order.OrderStatus.PAID));
-        stats.put("processingOrders", orderService.countByStatus(Order.OrderStatus.PROCESSING));
-        stats.put("fulfilledOrders", 
-            orderService.countByStatus(Order.OrderStatus.DELIVERED) + 
-            orderService.countByStatus(Order.OrderStatus.COLLECTED));
-        
-        // Revenue
-        stats.put("totalRevenue", orderService.calculateTotalRevenue());
-        
-        // Entry fees
-        BigDecimal kentFees = entryService.getEntryFee("KENT")
-            .multiply(BigDecimal.valueOf(entryService.countPaidEntries("KENT_NINES_2026")));
-        BigDecimal essexFees = entryService.getEntryFee("ESSEX")
-            .multiply(BigDecimal.valueOf(entryService.countPaidEntries("ESSEX_NINES_2026")));
-        stats.put("totalEntryFees", kentFees.add(essexFees));
-        
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok(dashboardService.getSnapshot().toMap());
+    }
+    
+    /**
+     * Token for opening the dashboard stream from a browser, whose EventSource can't send
+     * X-API-Key: GET /api/admin/dashboard/stream?token=... - fetch a new one to reconnect after expiry
+     */
+    @PostMapping("/dashboard/stream-token")
+    public ResponseEntity<AdminStreamTokens.Issued> dashboardStreamToken() {
+        return ResponseEntity.ok(streamTokens.issue());
+    }
+    
+    /**
+     * Live dashboard statistics as Server-Sent Events - X-API-Key or a stream token
+     */
+    @GetMapping(value = "/dashboard/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDashboard() {
+        return liveStatsService.subscribeDashboard();
     }
 }
@@ -0,0 +1,28 @@
+package uk.co.nationalninesgolf.api.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import uk.co.nationalninesgolf.api.service.ClubNameIndex;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/clubs")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"https://nationalninesgolf.co.uk", "http://localhost:4321", "http://localhost:3000"})
+public class ClubController {
+    
+    private static final int MAX_LIMIT = 20;
+    
+    private final ClubNameIndex clubNameIndex;
+    
+    /**
+     * Club name suggestions for the entry form, best match first
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<String>> search(@RequestParam(defaultValue = "") String q,
+                                               @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(clubNameIndex.search(q, Math.max(1, Math.min(limit, MAX_LIMIT))));
+    }
+}
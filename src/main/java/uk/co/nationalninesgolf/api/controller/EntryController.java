@@ -4,15 +4,25 @@ import com.stripe.exception.StripeException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import uk.co.nationalninesgolf.api.model.Entry;
+import uk.co.nationalninesgolf.api.model.EntrySummary;
+import uk.co.nationalninesgolf.api.service.EntryCursor;
 import uk.co.nationalninesgolf.api.service.EntryService;
+import uk.co.nationalninesgolf.api.service.IdempotencyService;
+import uk.co.nationalninesgolf.api.service.PaymentUnavailableException;
 import uk.co.nationalninesgolf.api.service.StripeService;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
 
 @RestController
 @RequestMapping("/api/entries")
@@ -23,22 +33,59 @@ public class EntryController {
     
     private final EntryService entryService;
     private final StripeService stripeService;
+    private final IdempotencyService idempotencyService;
+    
+    @Value("${app.entries.page-size:50}")
+    private int defaultPageSize;
+    
+    @Value("${app.entries.max-page-size:200}")
+    private int maxPageSize;
     
     /**
-     * Submit a new competition entry
+     * Submit a new competition entry - a retry with the same Idempotency-Key gets the original response
      */
     @PostMapping
-    public ResponseEntity<?> createEntry(@Valid @RequestBody Entry entry) {
+    public ResponseEntity<?> createEntry(
+            @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody Entry entry) {
+        if (idempotencyKey == null) {
+            return checkout(entry);
+        }
+        return idempotencyService.execute("entries", idempotencyKey, entry, () -> checkout(entry));
+    }
+    
+    /**
+     * Save the entry and create its Stripe checkout session - if the session can't be created the
+     * entry is withdrawn, so the error response leaves nothing behind
+     */
+    private ResponseEntity<?> checkout(Entry entry) {
+        if (!entryService.isOpenForEntries(entry.getEvent())) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "Entries are not open for " + entry.getEvent()));
+        }
+        
+        // Don't take the entry if Stripe is known to be down
+        if (!stripeService.isCheckoutAvailable()) {
+            return paymentUnavailable();
+        }
+        
+        // Reserves the club's place - empty if the club has already entered
+        Entry saved = entryService.createEntry(entry).orElse(null);
+        if (saved == null) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "This club has already entered " + entry.getEvent()));
+        }
+        
+        // Field is full - no payment until a place opens up
+        if (saved.getPaymentStatus() == Entry.PaymentStatus.WAITLISTED) {
+            return ResponseEntity.accepted().body(Map.of(
+                "entry", saved,
+                "waitlisted", true,
+                "position", entryService.waitlistPosition(saved)));
+        }
+        
+        // No checkout means no entry - withdrawing it frees the club to retry
         try {
-            // Check if club has already entered
-            if (entryService.clubHasEntered(entry.getEvent(), entry.getClubName())) {
-                return ResponseEntity.badRequest()
-                    .body(Map.of("error", "This club has already entered " + entry.getEvent()));
-            }
-            
-            Entry saved = entryService.createEntry(entry);
-            
-            // Create Stripe checkout session
             String checkoutUrl = stripeService.createEntryCheckoutSession(saved);
             
             Map<String, Object> response = new HashMap<>();
@@ -46,38 +93,125 @@ public class EntryController {
             response.put("checkoutUrl", checkoutUrl);
             
             return ResponseEntity.ok(response);
-            
-        } catch (StripeException e) {
+        
+        } catch (PaymentUnavailableException e) {
+            log.warn("Stripe checkout refused for entry {}: {}", saved.getId(), e.getMessage());
+            entryService.withdraw(saved);
+            return paymentUnavailable();
+        
+        } catch (StripeException | RuntimeException e) {
             log.error("Stripe error creating entry checkout", e);
+            entryService.withdraw(saved);
             return ResponseEntity.internalServerError()
                 .body(Map.of("error", "Payment system error. Please try again."));
         }
     }
     
+    /**
+     * Resume payment for a pending entry - reuses its open Stripe session when there is one
+     */
+    @PostMapping("/{id}/checkout")
+    public ResponseEntity<?> resumeCheckout(@PathVariable Long id) {
+        Entry entry = entryService.findById(id).orElse(null);
+        if (entry == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (entry.getPaymentStatus() != Entry.PaymentStatus.PENDING) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "This entry is not awaiting payment"));
+        }
+        
+        try {
+            return ResponseEntity.ok(Map.of("checkoutUrl", stripeService.resumeEntryCheckoutSession(entry)));
+        } catch (PaymentUnavailableException e) {
+            log.warn("Stripe checkout refused for entry {}: {}", id, e.getMessage());
+            return paymentUnavailable();
+        } catch (IllegalStateException e) {
+            // Paid or cancelled since it was read above
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "This entry is not awaiting payment"));
+        } catch (StripeException e) {
+            log.error("Stripe error resuming entry checkout", e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Payment system error. Please try again."));
+        }
+    }
+    
+    /**
+     * Fast-fail response while Stripe checkout is refusing calls
+     */
+    private ResponseEntity<?> paymentUnavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "30")
+            .body(Map.of("error", "Payment system is busy. Please try again shortly."));
+    }
+    
     /**
      * Get entry by ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Entry> getEntry(@PathVariable Long id) {
-        return entryService.findById(id)
+    public ResponseEntity<EntrySummary> getEntry(@PathVariable Long id) {
+        return entryService.findSummaryById(id)
             .map(ResponseEntity::ok)
             .orElse(ResponseEntity.notFound().build());
     }
     
     /**
-     * Get all entries for an event
+     * Get entries for an event, one keyset page at a time
      */
     @GetMapping("/event/{event}")
-    public ResponseEntity<List<Entry>> getEntriesByEvent(@PathVariable String event) {
-        return ResponseEntity.ok(entryService.findByEvent(event));
+    public ResponseEntity<?> getEntriesByEvent(
+            @PathVariable String event,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return page(cursor, size,
+            (after, pageSize) -> entryService.findPageByEvent(event, after, pageSize),
+            () -> entryService.countByEvent(event));
     }
     
     /**
-     * Get paid entries for an event (public leaderboard)
+     * Get paid entries for an event (public leaderboard), one keyset page at a time
      */
     @GetMapping("/event/{event}/paid")
-    public ResponseEntity<List<Entry>> getPaidEntriesByEvent(@PathVariable String event) {
-        return ResponseEntity.ok(entryService.findPaidEntriesByEvent(event));
+    public ResponseEntity<?> getPaidEntriesByEvent(
+            @PathVariable String event,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return page(cursor, size,
+            (after, pageSize) -> entryService.findPaidPageByEvent(event, after, pageSize),
+            () -> entryService.countPaidEntries(event));
+    }
+    
+    /**
+     * Fetch one page plus a look-ahead row; a Link rel="next" header is added when more remain
+     */
+    private ResponseEntity<?> page(String cursor, Integer size,
+                                   BiFunction<EntryCursor, Integer, List<EntrySummary>> fetch,
+                                   LongSupplier total) {
+        int pageSize = Math.min(size != null && size > 0 ? size : defaultPageSize, maxPageSize);
+        
+        EntryCursor after;
+        try {
+            after = cursor != null ? EntryCursor.decode(cursor) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        
+        List<EntrySummary> entries = fetch.apply(after, pageSize + 1);
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-Total-Count", String.valueOf(total.getAsLong()));
+        
+        if (entries.size() > pageSize) {
+            entries = entries.subList(0, pageSize);
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("cursor", EntryCursor.after(entries.get(pageSize - 1)).encode())
+                .replaceQueryParam("size", pageSize)
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        
+        return ResponseEntity.ok().headers(headers).body(entries);
     }
     
     /**
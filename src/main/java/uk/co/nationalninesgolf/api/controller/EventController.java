@@ -0,0 +1,28 @@
+package uk.co.nationalninesgolf.api.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import uk.co.nationalninesgolf.api.service.EventCatalog;
+import uk.co.nationalninesgolf.api.service.EventInfo;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"https://nationalninesgolf.co.uk", "http://localhost:4321", "http://localhost:3000"})
+public class EventController {
+    
+    private final EventCatalog eventCatalog;
+    
+    /**
+     * Events currently taking entries, with fees and field sizes
+     */
+    @GetMapping
+    public ResponseEntity<List<EventInfo>> getOpenEvents() {
+        return ResponseEntity.ok(eventCatalog.all().stream()
+            .filter(EventInfo::entriesOpen)
+            .toList());
+    }
+}
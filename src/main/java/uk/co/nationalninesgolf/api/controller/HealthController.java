@@ -1,12 +1,13 @@
 package uk.co.nationalninesgolf.api.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import uk.co.nationalninesgolf.api.service.EntryService;
-import uk.co.nationalninesgolf.api.service.OrderService;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uk.co.nationalninesgolf.api.service.LiveStatsService;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -20,8 +21,7 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class HealthController {
     
-    private final EntryService entryService;
-    private final OrderService orderService;
+    private final LiveStatsService liveStatsService;
     
     /**
      * Simple health check
@@ -40,9 +40,14 @@ public class HealthController {
      */
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> stats() {
-        Map<String, Object> response = new HashMap<>();
-        response.put("kentNinesEntries", entryService.countPaidEntries("KENT_NINES_2026"));
-        response.put("essexNinesEntries", entryService.countPaidEntries("ESSEX_NINES_2026"));
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(liveStatsService.publicStats());
+    }
+    
+    /**
+     * Live public stats as Server-Sent Events - pushed when entry counts change
+     */
+    @GetMapping(value = "/stats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStats() {
+        return liveStatsService.subscribeStats();
     }
 }
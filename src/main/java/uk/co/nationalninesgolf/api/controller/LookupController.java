@@ -0,0 +1,48 @@
+package uk.co.nationalninesgolf.api.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import uk.co.nationalninesgolf.api.service.CustomerLookupService;
+
+import java.util.Map;
+
+/**
+ * "My entries and orders" - request an emailed link, then view with the token it carries
+ */
+@RestController
+@RequestMapping("/api/lookup")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"https://nationalninesgolf.co.uk", "http://localhost:4321", "http://localhost:3000"})
+public class LookupController {
+    
+    private final CustomerLookupService customerLookupService;
+    
+    @Data
+    public static class LookupRequest {
+        @NotBlank
+        @Email
+        private String email;
+    }
+    
+    @PostMapping
+    public ResponseEntity<Map<String, String>> requestLink(@Valid @RequestBody LookupRequest request) {
+        customerLookupService.requestLink(request.getEmail());
+        return ResponseEntity.accepted().body(Map.of(
+            "message", "If we have entries or orders for that address, we've emailed you a link to view them"
+        ));
+    }
+    
+    @GetMapping
+    public ResponseEntity<?> lookup(@RequestParam String token) {
+        return customerLookupService.lookup(token)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(Map.of("error", "This link is invalid or has expired - please request a new one")));
+    }
+}
@@ -4,10 +4,15 @@ import com.stripe.exception.StripeException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import uk.co.nationalninesgolf.api.model.Order;
+import uk.co.nationalninesgolf.api.model.OrderStatusView;
+import uk.co.nationalninesgolf.api.service.IdempotencyService;
 import uk.co.nationalninesgolf.api.service.OrderService;
+import uk.co.nationalninesgolf.api.service.PaymentUnavailableException;
 import uk.co.nationalninesgolf.api.service.StripeService;
 
 import java.util.HashMap;
@@ -22,13 +27,31 @@ public class OrderController {
     
     private final OrderService orderService;
     private final StripeService stripeService;
+    private final IdempotencyService idempotencyService;
     
     /**
-     * Create a new order and get checkout URL
+     * Create a new order and get checkout URL - a retry with the same Idempotency-Key gets the original response
      */
     @PostMapping
-    public ResponseEntity<?> createOrder(@Valid @RequestBody Order order) {
+    public ResponseEntity<?> createOrder(
+            @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody Order order) {
+        if (idempotencyKey == null) {
+            return checkout(order);
+        }
+        return idempotencyService.execute("orders", idempotencyKey, order, () -> checkout(order));
+    }
+    
+    /**
+     * Save the order and create its Stripe checkout session
+     */
+    private ResponseEntity<?> checkout(Order order) {
         try {
+            // Don't take the order if Stripe is known to be down
+            if (!stripeService.isCheckoutAvailable()) {
+                return paymentUnavailable();
+            }
+            
             Order saved = orderService.createOrder(order);
             
             // Create Stripe checkout session
@@ -39,7 +62,11 @@ public class OrderController {
             response.put("checkoutUrl", checkoutUrl);
             
             return ResponseEntity.ok(response);
-            
+        
+        } catch (PaymentUnavailableException e) {
+            log.warn("Stripe checkout refused for order: {}", e.getMessage());
+            return paymentUnavailable();
+        
         } catch (StripeException e) {
             log.error("Stripe error creating order checkout", e);
             return ResponseEntity.internalServerError()
@@ -47,12 +74,51 @@ public class OrderController {
         }
     }
     
+    /**
+     * Resume payment for a pending order - reuses its open Stripe session when there is one
+     */
+    @PostMapping("/{orderNumber}/checkout")
+    public ResponseEntity<?> resumeCheckout(@PathVariable String orderNumber) {
+        Order order = orderService.findForCheckoutByOrderNumber(orderNumber).orElse(null);
+        if (order == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (order.getStatus() != Order.OrderStatus.PENDING) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "This order is not awaiting payment"));
+        }
+        
+        try {
+            return ResponseEntity.ok(Map.of("checkoutUrl", stripeService.resumeOrderCheckoutSession(order)));
+        } catch (PaymentUnavailableException e) {
+            log.warn("Stripe checkout refused for order {}: {}", orderNumber, e.getMessage());
+            return paymentUnavailable();
+        } catch (IllegalStateException e) {
+            // Paid or cancelled since it was read above
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "This order is not awaiting payment"));
+        } catch (StripeException e) {
+            log.error("Stripe error resuming order checkout", e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Payment system error. Please try again."));
+        }
+    }
+    
+    /**
+     * Fast-fail response while Stripe checkout is refusing calls
+     */
+    private ResponseEntity<?> paymentUnavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "30")
+            .body(Map.of("error", "Payment system is busy. Please try again shortly."));
+    }
+    
     /**
      * Get order by order number
      */
     @GetMapping("/{orderNumber}")
     public ResponseEntity<Order> getOrder(@PathVariable String orderNumber) {
-        return orderService.findByOrderNumber(orderNumber)
+        return orderService.findWithItemsByOrderNumber(orderNumber)
             .map(ResponseEntity::ok)
             .orElse(ResponseEntity.notFound().build());
     }
@@ -61,12 +127,9 @@ public class OrderController {
      * Get order status (for tracking)
      */
     @GetMapping("/{orderNumber}/status")
-    public ResponseEntity<Map<String, String>> getOrderStatus(@PathVariable String orderNumber) {
-        return orderService.findByOrderNumber(orderNumber)
-            .map(order -> ResponseEntity.ok(Map.of(
-                "orderNumber", order.getOrderNumber(),
-                "status", order.getStatus().name()
-            )))
+    public ResponseEntity<OrderStatusView> getOrderStatus(@PathVariable String orderNumber) {
+        return orderService.findStatusByOrderNumber(orderNumber)
+            .map(ResponseEntity::ok)
             .orElse(ResponseEntity.notFound().build());
     }
 }
@@ -16,7 +16,7 @@ public class WebhookController {
     private final StripeService stripeService;
     
     /**
-     * Stripe webhook endpoint
+     * Stripe webhook endpoint - acknowledges as soon as the event is stored in the inbox
      */
     @PostMapping("/stripe")
     public ResponseEntity<String> handleStripeWebhook(
@@ -25,13 +25,13 @@ public class WebhookController {
         
         try {
             stripeService.handleWebhook(payload, sigHeader);
-            return ResponseEntity.ok("Webhook processed");
+            return ResponseEntity.ok("Webhook received");
             
         } catch (SignatureVerificationException e) {
             log.error("Invalid Stripe webhook signature", e);
             return ResponseEntity.badRequest().body("Invalid signature");
         } catch (Exception e) {
-            log.error("Error processing Stripe webhook", e);
+            log.error("Error storing Stripe webhook", e);
             return ResponseEntity.internalServerError().body("Webhook processing error");
         }
     }
@@ -0,0 +1,58 @@
+package uk.co.nationalninesgolf.api.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A competition in the event catalog - entries refer to it by code
+ */
+@Entity
+@Table(name = "events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CompetitionEvent {
+    
+    @Id
+    @Column(length = 64)
+    private String code; // e.g. "KENT_NINES_2026"
+    
+    @NotBlank
+    @Column(nullable = false)
+    private String displayName; // e.g. "Kent Nines 2026"
+    
+    // Frontend page - /events/{slug}
+    @NotBlank
+    @Pattern(regexp = "[a-z0-9]+(-[a-z0-9]+)*")
+    @Column(nullable = false, unique = true)
+    private String slug;
+    
+    @NotNull
+    @DecimalMin("0.0")
+    @Column(nullable = false)
+    private BigDecimal entryFee;
+    
+    // Field size - 0 means unlimited
+    @Min(0)
+    private int capacity;
+    
+    @Builder.Default
+    private boolean entriesOpen = true;
+    
+    // Slots held by PENDING and PAID entries - only changed by the conditional UPDATEs in
+    // CompetitionEventRepository, never written through the entity
+    @Column(insertable = false, updatable = false)
+    private int heldSlots;
+    
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
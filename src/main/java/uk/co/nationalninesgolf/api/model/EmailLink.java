@@ -0,0 +1,49 @@
+package uk.co.nationalninesgolf.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Normalized email address -> entry or order it appears on.
+ * Both player emails of an entry get a row, so "everything for this email" is one index range scan.
+ */
+@Entity
+@Table(name = "email_links",
+    uniqueConstraints = @UniqueConstraint(
+        name = "uk_email_links_email_type_target", columnNames = {"email", "target_type", "target_id"}),
+    indexes = @Index(name = "idx_email_links_target", columnList = "target_type, target_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EmailLink {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // Trimmed and lower-cased
+    @Column(nullable = false)
+    private String email;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_type", nullable = false)
+    private TargetType targetType;
+    
+    @Column(name = "target_id", nullable = false)
+    private Long targetId;
+    
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+    
+    public enum TargetType {
+        ENTRY,
+        ORDER
+    }
+}
@@ -1,8 +1,12 @@
 package uk.co.nationalninesgolf.api.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
@@ -10,7 +14,13 @@ import java.time.LocalDateTime;
  * Competition entry - a pair entering Kent Nines or Essex Nines
  */
 @Entity
-@Table(name = "entries")
+@Table(name = "entries", uniqueConstraints = @UniqueConstraint(
+    name = "uk_entries_event_club_key", columnNames = {"event", "club_key"}))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entries")
+// Server-managed - returned in responses, never read from a request body
+@JsonIgnoreProperties(allowGetters = true, value = {
+    "id", "paymentStatus", "stripePaymentIntentId", "stripeSessionId",
+    "createdAt", "paidAt", "promotedAt", "checkoutStartedAt"})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,17 +28,24 @@ import java.time.LocalDateTime;
 public class Entry {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "entries_seq")
+    @SequenceGenerator(name = "entries_seq", sequenceName = "entries_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank
     @Column(nullable = false)
-    private String event; // "KENT_NINES_2026" or "ESSEX_NINES_2026"
+    private String event; // event catalog code, e.g. "KENT_NINES_2026"
     
     @NotBlank
     @Column(nullable = false)
     private String clubName;
     
+    // Normalized club name while the entry holds the club's place - cleared on cancellation.
+    // Unique per event, so two entries for the same club can't both be inserted.
+    @JsonIgnore
+    @Column(name = "club_key")
+    private String clubKey;
+    
     // Player 1
     @NotBlank
     private String player1Name;
@@ -78,12 +95,19 @@ public class Entry {
     
     private LocalDateTime paidAt;
     
+    // When a waitlisted entry was given a place - its payment window starts here
+    private LocalDateTime promotedAt;
+    
+    // When the latest Stripe checkout session was opened - the reaper ages PENDING entries from here
+    private LocalDateTime checkoutStartedAt;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
     }
     
     public enum PaymentStatus {
+        WAITLISTED,
         PENDING,
         PAID,
         FAILED,
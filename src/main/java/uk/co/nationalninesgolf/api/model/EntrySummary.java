@@ -0,0 +1,20 @@
+package uk.co.nationalninesgolf.api.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Public view of an entry - no emails, phone numbers or Stripe IDs
+ */
+public record EntrySummary(
+    Long id,
+    String event,
+    String clubName,
+    String player1Name,
+    BigDecimal player1Handicap,
+    String player2Name,
+    BigDecimal player2Handicap,
+    Entry.PaymentStatus paymentStatus,
+    LocalDateTime createdAt
+) {
+}
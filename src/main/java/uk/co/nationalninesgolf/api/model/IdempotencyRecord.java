@@ -0,0 +1,49 @@
+package uk.co.nationalninesgolf.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Stored response for an Idempotency-Key, replayed when a client retries the same request
+ */
+@Entity
+@Table(name = "idempotency_keys", uniqueConstraints = @UniqueConstraint(columnNames = {"scope", "idempotencyKey"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // Endpoint the key belongs to, e.g. "entries" or "orders"
+    @Column(nullable = false)
+    private String scope;
+    
+    @Column(nullable = false)
+    private String idempotencyKey;
+    
+    // SHA-256 of the request body - a key reused with a different body is rejected
+    @Column(nullable = false)
+    private String requestHash;
+    
+    private int statusCode;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String responseBody;
+    
+    // Timestamps
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
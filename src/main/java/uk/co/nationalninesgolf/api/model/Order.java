@@ -1,8 +1,13 @@
 package uk.co.nationalninesgolf.api.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -13,6 +18,12 @@ import java.util.List;
  */
 @Entity
 @Table(name = "orders")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "orders")
+@NaturalIdCache(region = "orders-by-number")
+// Server-managed - returned in responses, never read from a request body
+@JsonIgnoreProperties(allowGetters = true, value = {
+    "id", "orderNumber", "status", "stripePaymentIntentId", "stripeSessionId",
+    "createdAt", "paidAt", "fulfilledAt", "checkoutStartedAt"})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,9 +31,11 @@ import java.util.List;
 public class Order {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
     
+    @NaturalId
     @Column(unique = true, nullable = false)
     private String orderNumber;
     
@@ -50,6 +63,7 @@ public class Order {
     
     // Items
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "order-items-by-order")
     @Builder.Default
     private List<OrderItem> items = new ArrayList<>();
     
@@ -80,12 +94,12 @@ public class Order {
     private LocalDateTime paidAt;
     private LocalDateTime fulfilledAt;
     
+    // When the latest Stripe checkout session was opened - the reaper ages PENDING orders from here
+    private LocalDateTime checkoutStartedAt;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
-        if (orderNumber == null) {
-            orderNumber = "NN-" + System.currentTimeMillis();
-        }
     }
     
     public void addItem(OrderItem item) {
@@ -1,8 +1,12 @@
 package uk.co.nationalninesgolf.api.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.math.BigDecimal;
 
 /**
@@ -10,6 +14,8 @@ import java.math.BigDecimal;
  */
 @Entity
 @Table(name = "order_items")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "order-items")
+@JsonIgnoreProperties(allowGetters = true, value = "id")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,11 +23,15 @@ import java.math.BigDecimal;
 public class OrderItem {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id", nullable = false)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Order order;
     
     @NotBlank
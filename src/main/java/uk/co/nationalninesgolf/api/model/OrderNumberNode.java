@@ -0,0 +1,30 @@
+package uk.co.nationalninesgolf.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * An order number node ID and the instance currently leasing it
+ */
+@Entity
+@Table(name = "order_number_nodes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderNumberNode {
+    
+    @Id
+    private Integer nodeId;
+    
+    // Instance holding the lease - host name plus a per-start random suffix
+    @Column(nullable = false)
+    private String owner;
+    
+    @Column(nullable = false)
+    private LocalDateTime leaseExpiresAt;
+    
+    // Generator milliseconds the owner may issue below - the next owner starts here
+    private long reservedUntil;
+}
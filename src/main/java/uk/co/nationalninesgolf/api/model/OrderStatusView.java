@@ -0,0 +1,7 @@
+package uk.co.nationalninesgolf.api.model;
+
+/**
+ * Public order tracking view
+ */
+public record OrderStatusView(String orderNumber, Order.OrderStatus status) {
+}
@@ -0,0 +1,68 @@
+package uk.co.nationalninesgolf.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Verified Stripe webhook event waiting to be processed by the inbox worker
+ */
+@Entity
+@Table(name = "webhook_inbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WebhookInboxEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(unique = true, nullable = false)
+    private String stripeEventId;
+    
+    @Column(nullable = false)
+    private String eventType;
+    
+    // Stripe object the event is about - events for the same object are processed in order
+    @Column(nullable = false)
+    private String objectId;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private Status status = Status.PENDING;
+    
+    @Builder.Default
+    private int attempts = 0;
+    
+    private String lastError;
+    
+    // Timestamps
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime receivedAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    private LocalDateTime processedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        receivedAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = receivedAt;
+        }
+    }
+    
+    public enum Status {
+        PENDING,
+        PROCESSING,
+        PROCESSED,
+        FAILED
+    }
+}
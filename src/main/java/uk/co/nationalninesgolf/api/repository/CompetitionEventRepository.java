@@ -0,0 +1,39 @@
+package uk.co.nationalninesgolf.api.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import uk.co.nationalninesgolf.api.model.CompetitionEvent;
+
+import java.util.List;
+
+@Repository
+public interface CompetitionEventRepository extends JpaRepository<CompetitionEvent, String> {
+    
+    // Field slots - each statement runs in the caller's transaction; capacity 0 means unlimited
+    
+    /**
+     * Take a slot for a new entry - 0 if the field is full or entries are already waiting for a place
+     */
+    @Modifying
+    @Query("UPDATE CompetitionEvent ev SET ev.heldSlots = ev.heldSlots + 1 " +
+           "WHERE ev.code = ?1 AND (ev.capacity = 0 OR ev.heldSlots < ev.capacity) " +
+           "AND NOT EXISTS (SELECT 1 FROM Entry e WHERE e.event = ?1 AND e.paymentStatus = 'WAITLISTED')")
+    int takeSlotIfNoneWaiting(String code);
+    
+    /**
+     * Take a slot for a waitlisted entry - 0 if the field is full
+     */
+    @Modifying
+    @Query("UPDATE CompetitionEvent ev SET ev.heldSlots = ev.heldSlots + 1 " +
+           "WHERE ev.code = ?1 AND (ev.capacity = 0 OR ev.heldSlots < ev.capacity)")
+    int takeSlot(String code);
+    
+    @Modifying
+    @Query("UPDATE CompetitionEvent ev SET ev.heldSlots = ev.heldSlots - ?2 WHERE ev.code = ?1")
+    int releaseSlots(String code, int count);
+    
+    @Query("SELECT ev.code, ev.heldSlots FROM CompetitionEvent ev")
+    List<Object[]> findHeldSlots();
+}
@@ -0,0 +1,32 @@
+package uk.co.nationalninesgolf.api.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import uk.co.nationalninesgolf.api.model.EmailLink;
+
+import java.util.List;
+
+@Repository
+public interface EmailLinkRepository extends JpaRepository<EmailLink, Long> {
+    
+    /**
+     * Ids linked to an email - answered from the (email, target_type, target_id) unique index alone
+     */
+    @Query("SELECT l.targetId FROM EmailLink l WHERE l.email = ?1 AND l.targetType = ?2 ORDER BY l.targetId DESC")
+    List<Long> findTargetIds(String email, EmailLink.TargetType targetType);
+    
+    boolean existsByEmail(String email);
+    
+    /**
+     * Entries with no links yet, in id order - created before links existed, or whose link write failed
+     */
+    @Query("SELECT e.id FROM Entry e WHERE e.id > ?1 AND NOT EXISTS " +
+           "(SELECT 1 FROM EmailLink l WHERE l.targetType = 'ENTRY' AND l.targetId = e.id) ORDER BY e.id ASC")
+    List<Long> findUnlinkedEntryIds(Long afterId, Limit limit);
+    
+    @Query("SELECT o.id FROM Order o WHERE o.id > ?1 AND NOT EXISTS " +
+           "(SELECT 1 FROM EmailLink l WHERE l.targetType = 'ORDER' AND l.targetId = o.id) ORDER BY o.id ASC")
+    List<Long> findUnlinkedOrderIds(Long afterId, Limit limit);
+}
@@ -1,12 +1,26 @@
 package uk.co.nationalninesgolf.api.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.LockOptions;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import uk.co.nationalninesgolf.api.model.Entry;
+import uk.co.nationalninesgolf.api.model.EntrySummary;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface EntryRepository extends JpaRepository<Entry, Long> {
@@ -15,17 +29,139 @@ public interface EntryRepository extends JpaRepository<Entry, Long> {
     
     List<Entry> findByEventAndPaymentStatus(String event, Entry.PaymentStatus status);
     
+    // Public projections - keyset pages ordered by (createdAt, id)
+    
+    String SUMMARY = "SELECT new uk.co.nationalninesgolf.api.model.EntrySummary(" +
+        "e.id, e.event, e.clubName, e.player1Name, e.player1Handicap, e.player2Name, e.player2Handicap, " +
+        "e.paymentStatus, e.createdAt) FROM Entry e ";
+    
+    @Query(SUMMARY + "WHERE e.id = ?1")
+    Optional<EntrySummary> findSummaryById(Long id);
+    
+    @Query(SUMMARY + "WHERE e.event = ?1 ORDER BY e.createdAt ASC, e.id ASC")
+    List<EntrySummary> findSummariesByEvent(String event, Limit limit);
+    
+    @Query(SUMMARY + "WHERE e.event = ?1 AND (e.createdAt > ?2 OR (e.createdAt = ?2 AND e.id > ?3)) " +
+           "ORDER BY e.createdAt ASC, e.id ASC")
+    List<EntrySummary> findSummariesByEventAfter(String event, LocalDateTime createdAt, Long id, Limit limit);
+    
+    @Query(SUMMARY + "WHERE e.event = ?1 AND e.paymentStatus = ?2 ORDER BY e.createdAt ASC, e.id ASC")
+    List<EntrySummary> findSummariesByEventAndPaymentStatus(String event, Entry.PaymentStatus status, Limit limit);
+    
+    @Query(SUMMARY + "WHERE e.event = ?1 AND e.paymentStatus = ?2 " +
+           "AND (e.createdAt > ?3 OR (e.createdAt = ?3 AND e.id > ?4)) ORDER BY e.createdAt ASC, e.id ASC")
+    List<EntrySummary> findSummariesByEventAndPaymentStatusAfter(String event, Entry.PaymentStatus status,
+                                                                 LocalDateTime createdAt, Long id, Limit limit);
+    
+    long countByEvent(String event);
+    
+    // Exports - consume inside a read-only transaction
+    
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT e FROM Entry e ORDER BY e.id")
+    Stream<Entry> streamAll();
+    
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT e FROM Entry e WHERE e.event = ?1 ORDER BY e.id")
+    Stream<Entry> streamByEvent(String event);
+    
     List<Entry> findByClubNameContainingIgnoreCase(String clubName);
     
+    @Query("SELECT e.clubName, COUNT(e) FROM Entry e WHERE e.paymentStatus <> 'CANCELLED' GROUP BY e.clubName")
+    List<Object[]> countLiveEntriesGroupedByClubName();
+    
     Optional<Entry> findByStripeSessionId(String stripeSessionId);
     
     Optional<Entry> findByStripePaymentIntentId(String paymentIntentId);
     
-    @Query("SELECT e FROM Entry e WHERE e.player1Email = ?1 OR e.player2Email = ?1")
-    List<Entry> findByPlayerEmail(String email);
-    
     @Query("SELECT COUNT(e) FROM Entry e WHERE e.event = ?1 AND e.paymentStatus = 'PAID'")
     long countPaidEntriesByEvent(String event);
     
-    boolean existsByEventAndClubName(String event, String clubName);
+    @Query("SELECT e.event, COUNT(e) FROM Entry e WHERE e.paymentStatus = 'PAID' GROUP BY e.event")
+    List<Object[]> countPaidEntriesGroupedByEvent();
+    
+    /**
+     * Rows of (event, paymentStatus, count, sum of entryFee)
+     */
+    @Query("SELECT e.event, e.paymentStatus, COUNT(e), SUM(e.entryFee) FROM Entry e GROUP BY e.event, e.paymentStatus")
+    List<Object[]> summarizeByEventAndStatus();
+    
+    // Club reservations - club_key is set while an entry holds its club's place
+    
+    @Query("SELECT e.event, e.clubKey FROM Entry e WHERE e.clubKey IS NOT NULL")
+    List<Object[]> findClubClaims();
+    
+    @Query("SELECT e FROM Entry e WHERE e.clubKey IS NULL AND e.paymentStatus <> 'CANCELLED'")
+    List<Entry> findActiveWithoutClubKey();
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE Entry e SET e.clubKey = ?2 WHERE e.id = ?1")
+    int assignClubKey(Long id, String clubKey);
+    
+    // Field capacity - PENDING and PAID entries hold a slot (counted on the events row),
+    // WAITLISTED entries queue for one oldest first
+    
+    /**
+     * Oldest waiting entries, locked for promotion - rows another transaction holds are skipped
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "" + LockOptions.SKIP_LOCKED))
+    @Query("SELECT e FROM Entry e WHERE e.event = ?1 AND e.paymentStatus = 'WAITLISTED' ORDER BY e.createdAt ASC, e.id ASC")
+    List<Entry> lockWaitlistHead(String event, Limit limit);
+    
+    /**
+     * Waiting entries up to and including this one - its 1-based waitlist position
+     */
+    @Query("SELECT COUNT(e) FROM Entry e, Entry me WHERE me.id = ?1 AND e.event = me.event " +
+           "AND e.paymentStatus = 'WAITLISTED' " +
+           "AND (e.createdAt < me.createdAt OR (e.createdAt = me.createdAt AND e.id <= me.id))")
+    long countWaitlistedUpTo(Long id);
+    
+    @Query("SELECT e.event, COUNT(e) FROM Entry e WHERE e.paymentStatus = 'WAITLISTED' GROUP BY e.event")
+    List<Object[]> countWaitlistGroupedByEvent();
+    
+    /**
+     * WAITLISTED -> PENDING - returns 0 if the entry left the waitlist some other way
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Entry e SET e.paymentStatus = 'PENDING', e.promotedAt = ?2 WHERE e.id = ?1 AND e.paymentStatus = 'WAITLISTED'")
+    int promoteIfWaitlisted(Long id, LocalDateTime promotedAt);
+    
+    /**
+     * Stamp the start of a new checkout session on a PENDING entry - returns 0 if it is no longer pending
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Entry e SET e.checkoutStartedAt = ?2 WHERE e.id = ?1 AND e.paymentStatus = 'PENDING'")
+    int startCheckoutIfPending(Long id, LocalDateTime startedAt);
+    
+    // Abandoned checkout reaper - keyset chunks by id; entries are aged from their latest checkout
+    // session, else from promotion, else from creation
+    
+    @Query("SELECT e.id FROM Entry e WHERE e.paymentStatus = 'PENDING' " +
+           "AND COALESCE(e.checkoutStartedAt, e.promotedAt, e.createdAt) < ?1 AND e.id > ?2 ORDER BY e.id")
+    List<Long> findStalePendingIds(LocalDateTime cutoff, Long afterId, Limit limit);
+    
+    @Query("SELECT DISTINCT e.event FROM Entry e WHERE e.id IN ?1")
+    List<String> findEventsByIds(List<Long> ids);
+    
+    /**
+     * PENDING -> CANCELLED for one event's share of a chunk of ids, freeing their clubs - rows paid
+     * in the meantime are left alone. Run it in the transaction that gives the slots back.
+     */
+    @Modifying
+    @Query("UPDATE Entry e SET e.paymentStatus = 'CANCELLED', e.clubKey = NULL " +
+           "WHERE e.id IN ?1 AND e.event = ?2 AND e.paymentStatus = 'PENDING' " +
+           "AND COALESCE(e.checkoutStartedAt, e.promotedAt, e.createdAt) < ?3")
+    int cancelIfStillPending(List<Long> ids, String event, LocalDateTime cutoff);
+    
+    /**
+     * PENDING -> PAID in a single statement - returns 0 if the entry was not pending
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Entry e SET e.paymentStatus = 'PAID', e.paidAt = ?2, e.stripePaymentIntentId = ?3 " +
+           "WHERE e.id = ?1 AND e.paymentStatus = 'PENDING'")
+    int markPaidIfPending(Long id, LocalDateTime paidAt, String paymentIntentId);
 }
@@ -0,0 +1,44 @@
+package uk.co.nationalninesgolf.api.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import uk.co.nationalninesgolf.api.model.OrderNumberNode;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderNumberNodeRepository extends JpaRepository<OrderNumberNode, Integer> {
+    
+    @Query("SELECT n.nodeId FROM OrderNumberNode n")
+    List<Integer> findAllNodeIds();
+    
+    @Query("SELECT n.nodeId FROM OrderNumberNode n WHERE n.leaseExpiresAt < ?1 ORDER BY n.leaseExpiresAt")
+    List<Integer> findExpiredNodeIds(LocalDateTime now);
+    
+    /**
+     * Take or renew a node's lease - 0 if another instance holds it and its lease hasn't expired
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OrderNumberNode n SET n.owner = ?2, n.leaseExpiresAt = ?3 " +
+           "WHERE n.nodeId = ?1 AND (n.owner = ?2 OR n.leaseExpiresAt < ?4)")
+    int claim(Integer nodeId, String owner, LocalDateTime leaseExpiresAt, LocalDateTime now);
+    
+    /**
+     * Raise the owner's reservation - 0 if the lease has passed to another instance
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OrderNumberNode n SET n.reservedUntil = ?3 " +
+           "WHERE n.nodeId = ?1 AND n.owner = ?2")
+    int reserve(Integer nodeId, String owner, long reservedUntil);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE OrderNumberNode n SET n.leaseExpiresAt = ?3 WHERE n.nodeId = ?1 AND n.owner = ?2")
+    int release(Integer nodeId, String owner, LocalDateTime now);
+}
@@ -1,28 +1,68 @@
 package uk.co.nationalninesgolf.api.repository;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import uk.co.nationalninesgolf.api.model.Order;
+import uk.co.nationalninesgolf.api.model.OrderItem;
+import uk.co.nationalninesgolf.api.model.OrderStatusView;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
     Optional<Order> findByOrderNumber(String orderNumber);
     
+    // Public status poll - two columns straight from the database, never the entity cache,
+    // so a payment shows as soon as it commits on any instance
+    
+    @Query("SELECT new uk.co.nationalninesgolf.api.model.OrderStatusView(o.orderNumber, o.status) " +
+           "FROM Order o WHERE o.orderNumber = ?1")
+    Optional<OrderStatusView> findStatusByOrderNumber(String orderNumber);
+    
+    // Item-loading variants - orders and items in one query instead of one query per order
+    
+    @EntityGraph(attributePaths = "items")
+    Optional<Order> findWithItemsById(Long id);
+    
+    // Always a database read, unlike the natural-id lookup in OrderService
+    @EntityGraph(attributePaths = "items")
+    Optional<Order> findWithItemsByOrderNumber(String orderNumber);
+    
+    @EntityGraph(attributePaths = "items")
+    List<Order> findWithItemsByIdIn(Collection<Long> ids);
+    
+    @EntityGraph(attributePaths = "items")
+    @Query("SELECT o FROM Order o")
+    List<Order> findAllWithItems();
+    
+    @EntityGraph(attributePaths = "items")
+    List<Order> findWithItemsByStatus(Order.OrderStatus status);
+    
+    @EntityGraph(attributePaths = "items")
+    @Query("SELECT o FROM Order o WHERE o.status IN ('PAID', 'PROCESSING') ORDER BY o.createdAt ASC")
+    List<Order> findOrdersToFulfillWithItems();
+    
     Optional<Order> findByStripeSessionId(String stripeSessionId);
     
     Optional<Order> findByStripePaymentIntentId(String paymentIntentId);
     
     List<Order> findByStatus(Order.OrderStatus status);
     
-    List<Order> findByCustomerEmail(String email);
-    
     List<Order> findByDeliveryMethod(Order.DeliveryMethod deliveryMethod);
     
     @Query("SELECT o FROM Order o WHERE o.createdAt >= ?1 ORDER BY o.createdAt DESC")
@@ -36,4 +76,52 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     @Query("SELECT COUNT(o) FROM Order o WHERE o.status = ?1")
     long countByStatus(Order.OrderStatus status);
+    
+    // Exports - rows of (order, item), grouped by order; an order without items is one row with a
+    // null item. Consume inside a read-only transaction.
+    
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT o, i FROM Order o LEFT JOIN o.items i ORDER BY o.id, i.id")
+    Stream<Object[]> streamOrdersWithItems();
+    
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT o, i FROM Order o LEFT JOIN o.items i WHERE o.status = ?1 ORDER BY o.id, i.id")
+    Stream<Object[]> streamOrdersWithItemsByStatus(Order.OrderStatus status);
+    
+    /**
+     * Rows of (status, count, sum of total)
+     */
+    @Query("SELECT o.status, COUNT(o), SUM(o.total) FROM Order o GROUP BY o.status")
+    List<Object[]> summarizeByStatus();
+    
+    /**
+     * PENDING -> PAID in a single statement - returns 0 if the order was not pending
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = 'PAID', o.paidAt = ?2, o.stripePaymentIntentId = ?3 " +
+           "WHERE o.id = ?1 AND o.status = 'PENDING'")
+    int markPaidIfPending(Long id, LocalDateTime paidAt, String paymentIntentId);
+    
+    /**
+     * Stamp the start of a new checkout session on a PENDING order - returns 0 if it is no longer pending
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Order o SET o.checkoutStartedAt = ?2 WHERE o.id = ?1 AND o.status = 'PENDING'")
+    int startCheckoutIfPending(Long id, LocalDateTime startedAt);
+    
+    // Abandoned checkout reaper - keyset chunks by id; orders are aged from their latest checkout session
+    
+    @Query("SELECT o.id FROM Order o WHERE o.status = 'PENDING' AND COALESCE(o.checkoutStartedAt, o.createdAt) < ?1 " +
+           "AND o.id > ?2 ORDER BY o.id")
+    List<Long> findStalePendingIds(LocalDateTime cutoff, Long afterId, Limit limit);
+    
+    /**
+     * PENDING -> CANCELLED for a chunk of ids - rows paid in the meantime are left alone
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Order o SET o.status = 'CANCELLED' " +
+           "WHERE o.id IN ?1 AND o.status = 'PENDING' AND COALESCE(o.checkoutStartedAt, o.createdAt) < ?2")
+    int cancelIfStillPending(List<Long> ids, LocalDateTime cutoff);
 }
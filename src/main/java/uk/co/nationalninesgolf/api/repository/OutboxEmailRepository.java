@@ -0,0 +1,33 @@
+package uk.co.nationalninesgolf.api.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import uk.co.nationalninesgolf.api.model.OutboxEmail;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+    
+    /**
+     * Pending emails that are due, plus SENDING emails whose lease has expired (worker died mid-send)
+     */
+    @Query("SELECT m.id FROM OutboxEmail m WHERE m.status IN ('PENDING', 'SENDING') AND m.nextAttemptAt <= ?1 ORDER BY m.id ASC")
+    List<Long> findDueIds(LocalDateTime now, Pageable pageable);
+    
+    /**
+     * Claim an email for sending - returns 0 if another worker got there first
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEmail m SET m.status = 'SENDING', m.nextAttemptAt = ?3 " +
+           "WHERE m.id = ?1 AND m.status IN ('PENDING', 'SENDING') AND m.nextAttemptAt <= ?2")
+    int claim(Long id, LocalDateTime now, LocalDateTime leaseUntil);
+    
+    long countByStatus(OutboxEmail.Status status);
+}
@@ -0,0 +1,41 @@
+package uk.co.nationalninesgolf.api.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import uk.co.nationalninesgolf.api.model.WebhookInboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WebhookInboxRepository extends JpaRepository<WebhookInboxEvent, Long> {
+    
+    /**
+     * Due events, oldest first, skipping any event that has an earlier unfinished event for the same object
+     */
+    @Query("SELECT w FROM WebhookInboxEvent w WHERE w.status IN ('PENDING', 'PROCESSING') AND w.nextAttemptAt <= ?1 " +
+           "AND NOT EXISTS (SELECT p FROM WebhookInboxEvent p WHERE p.objectId = w.objectId AND p.id < w.id " +
+           "AND p.status IN ('PENDING', 'PROCESSING')) ORDER BY w.id ASC")
+    List<WebhookInboxEvent> findDue(LocalDateTime now, Pageable pageable);
+    
+    /**
+     * Claim an event for processing - returns 0 if another worker got there first
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WebhookInboxEvent w SET w.status = 'PROCESSING', w.nextAttemptAt = ?3 " +
+           "WHERE w.id = ?1 AND w.status IN ('PENDING', 'PROCESSING') AND w.nextAttemptAt <= ?2")
+    int claim(Long id, LocalDateTime now, LocalDateTime leaseUntil);
+    
+    boolean existsByStripeEventId(String stripeEventId);
+    
+    long countByStatus(WebhookInboxEvent.Status status);
+    
+    @Query("SELECT MIN(w.receivedAt) FROM WebhookInboxEvent w WHERE w.status IN ('PENDING', 'PROCESSING')")
+    Optional<LocalDateTime> findOldestUnprocessedReceivedAt();
+}
@@ -0,0 +1,92 @@
+package uk.co.nationalninesgolf.api.service;
+
+import com.stripe.model.checkout.Session;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Open Stripe Checkout sessions per entry/order, so a payer coming back to checkout
+ * gets the same session instead of a new one. Entries drop out when Stripe reports the
+ * session completed or expired, or shortly before the session's own expiry.
+ */
+@Component
+public class CheckoutSessionCache {
+    
+    private final Map<String, OpenSession> sessions = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    
+    @Value("${stripe.checkout.reuse-margin:PT5M}")
+    private Duration reuseMargin;
+    
+    public CheckoutSessionCache(MeterRegistry meterRegistry) {
+        this.hits = meterRegistry.counter("stripe.checkout.session.cache", "result", "hit");
+        this.misses = meterRegistry.counter("stripe.checkout.session.cache", "result", "miss");
+        Gauge.builder("stripe.checkout.session.cache.size", sessions, Map::size)
+            .description("Open checkout sessions held in memory")
+            .register(meterRegistry);
+    }
+    
+    public static String entryKey(Long entryId) {
+        return "entry:" + entryId;
+    }
+    
+    public static String orderKey(Long orderId) {
+        return "order:" + orderId;
+    }
+    
+    /**
+     * Checkout URL of the cached session, if it is still comfortably before expiry
+     */
+    public Optional<String> url(String key) {
+        OpenSession session = sessions.get(key);
+        if (session == null || !session.usable(reuseMargin)) {
+            if (session != null) {
+                sessions.remove(key, session);
+            }
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(session.url());
+    }
+    
+    /**
+     * Cache an open session - sessions without a URL or expiry are ignored
+     */
+    public void put(String key, Session session) {
+        if (session.getUrl() == null || session.getExpiresAt() == null) {
+            return;
+        }
+        OpenSession open = new OpenSession(session.getId(), session.getUrl(), Instant.ofEpochSecond(session.getExpiresAt()));
+        if (open.usable(reuseMargin)) {
+            sessions.put(key, open);
+        }
+    }
+    
+    public void evict(String key) {
+        sessions.remove(key);
+    }
+    
+    @Scheduled(fixedDelayString = "${stripe.checkout.session-sweep-interval:PT10M}")
+    public void sweep() {
+        sessions.values().removeIf(session -> !session.usable(reuseMargin));
+    }
+    
+    private record OpenSession(String sessionId, String url, Instant expiresAt) {
+        
+        boolean usable(Duration margin) {
+            return Instant.now().plus(margin).isBefore(expiresAt);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package uk.co.nationalninesgolf.api.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.co.nationalninesgolf.api.model.Entry;
+import uk.co.nationalninesgolf.api.repository.EntryRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of clubs holding a place in each event, so repeat submissions are
+ * rejected without a query. The unique (event, club_key) constraint is the authority -
+ * a claim missing here (another instance, or lost during a reload) is caught on insert.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ClubClaims {
+    
+    private final EntryRepository entryRepository;
+    
+    private volatile Map<String, Set<String>> claims = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void seed() {
+        backfill();
+        reload();
+    }
+    
+    /**
+     * Claim a club's place - false if the club already holds one
+     */
+    public boolean tryClaim(String event, String clubKey) {
+        return claims.computeIfAbsent(event, e -> ConcurrentHashMap.newKeySet()).add(clubKey);
+    }
+    
+    public void release(String event, String clubKey) {
+        Set<String> clubs = claims.get(event);
+        if (clubs != null) {
+            clubs.remove(clubKey);
+        }
+    }
+    
+    /**
+     * Replace the claim sets with the database's - drops claims of cancelled entries
+     */
+    @Scheduled(
+        initialDelayString = "${app.entries.claim-reconcile-interval:PT5M}",
+        fixedDelayString = "${app.entries.claim-reconcile-interval:PT5M}")
+    public void reload() {
+        Map<String, Set<String>> fresh = new ConcurrentHashMap<>();
+        for (Object[] row : entryRepository.findClubClaims()) {
+            fresh.computeIfAbsent((String) row[0], e -> ConcurrentHashMap.newKeySet()).add((String) row[1]);
+        }
+        claims = fresh;
+    }
+    
+    /**
+     * Give entries created before club keys existed their key.
+     * Where legacy data already has the same club twice, the later entry is left without one.
+     */
+    private void backfill() {
+        List<Entry> unkeyed = entryRepository.findActiveWithoutClubKey();
+        for (Entry entry : unkeyed) {
+            try {
+                entryRepository.assignClubKey(entry.getId(), ClubNames.normalize(entry.getClubName()));
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Entry {} duplicates another entry from {} for {}", entry.getId(), entry.getClubName(), entry.getEvent());
+            }
+        }
+        if (!unkeyed.isEmpty()) {
+            log.info("Assigned club keys to {} existing entries", unkeyed.size());
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package uk.co.nationalninesgolf.api.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import uk.co.nationalninesgolf.api.repository.EntryRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory club name index for autocomplete.
+ * Names are indexed by normalized word (sorted, for prefix lookups) and by trigram (for matches
+ * inside a word), so a search never touches the database. Seeded from clubs.txt and the entries
+ * table at startup, then kept current as entries are created and cancelled - a name typed only by
+ * entries that were all cancelled drops out, so abandoned or junk submissions don't linger.
+ */
+@Component
+@Slf4j
+public class ClubNameIndex {
+    
+    private static final int GRAM = 3;
+    
+    // Dropped from keys by normalization ("golf club" -> "gc") or too common to narrow a search
+    private static final List<String> FILLER_WORDS = List.of("golf", "club", "gc", "and", "the");
+    
+    private final EntryRepository entryRepository;
+    
+    private final Map<String, Club> clubs = new ConcurrentHashMap<>();
+    private final NavigableMap<String, Set<String>> words = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<String>> grams = new ConcurrentHashMap<>();
+    
+    @Value("${app.clubs.seed-file:classpath:clubs.txt}")
+    private Resource seedFile;
+    
+    public ClubNameIndex(EntryRepository entryRepository, MeterRegistry meterRegistry) {
+        this.entryRepository = entryRepository;
+        Gauge.builder("clubs.index.size", clubs, Map::size)
+            .description("Club names available to autocomplete")
+            .register(meterRegistry);
+    }
+    
+    @PostConstruct
+    public void load() {
+        // Seed names go first so their spelling wins over whatever an entrant typed
+        int seeded = 0;
+        if (seedFile.exists()) {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(seedFile.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.strip();
+                    if (!line.isEmpty() && !line.startsWith("#")) {
+                        add(line, 0, true);
+                        seeded++;
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Could not read club seed list {}", seedFile, e);
+            }
+        }
+        
+        for (Map.Entry<String, Integer> live : liveEntries().entrySet()) {
+            add(live.getKey(), live.getValue(), false);
+        }
+        log.info("Indexed {} club names ({} from the seed list)", clubs.size(), seeded);
+    }
+    
+    /**
+     * Count a new entry from a club, adding the club if it hasn't been seen before
+     */
+    public void record(String clubName) {
+        add(clubName, 1, false);
+    }
+    
+    /**
+     * Uncount a cancelled entry, dropping the club once it has no live entries unless it is seeded
+     */
+    public void release(String clubName) {
+        remove(clubName, 1);
+    }
+    
+    /**
+     * Bring entry counts in line with the database after bulk cancellations. Applied as a delta
+     * against the counts held before the query, so entries recorded meanwhile aren't lost.
+     */
+    public void reload() {
+        Map<String, Club> before = new HashMap<>(clubs);
+        Map<String, Integer> counts = new HashMap<>();
+        before.forEach((key, club) -> counts.put(key, club.entries.get()));
+        
+        Map<String, Integer> live = new HashMap<>();
+        Map<String, String> names = new HashMap<>();
+        liveEntries().forEach((name, count) -> {
+            String key = key(name);
+            if (key != null) {
+                live.merge(key, count, Integer::sum);
+                names.putIfAbsent(key, name);
+            }
+        });
+        
+        before.forEach((key, club) -> {
+            int delta = live.getOrDefault(key, 0) - counts.get(key);
+            if (delta < 0) {
+                remove(club, key, -delta);
+            } else if (delta > 0) {
+                club.entries.addAndGet(delta);
+            }
+        });
+        // Entries made through other instances
+        live.forEach((key, count) -> {
+            if (!before.containsKey(key)) {
+                add(names.get(key), count, false);
+            }
+        });
+    }
+    
+    /**
+     * Clubs matching every word of the query, best first: whole-name prefix matches, then
+     * word-prefix matches, then matches inside a word, with clubs that enter most ranked higher
+     */
+    public List<String> search(String query, int limit) {
+        String normalized = ClubNames.normalize(query);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        
+        String[] tokens = normalized.split(" ");
+        Set<String> candidates = null;
+        // Filler words last - they only narrow a search, never start one
+        for (String token : Arrays.stream(tokens).sorted(Comparator.comparing(ClubNameIndex::isFiller)).toList()) {
+            Set<String> matches = token.length() >= GRAM ? containing(token) : startingWith(token);
+            if (candidates == null) {
+                candidates = new HashSet<>(matches);
+                continue;
+            }
+            
+            Set<String> narrowed = new HashSet<>(candidates);
+            narrowed.retainAll(matches);
+            if (narrowed.isEmpty() && isFiller(token)) {
+                // "royal st georges gol" - the entrant is still typing "golf club", which keys store as "gc"
+                continue;
+            }
+            candidates = narrowed;
+        }
+        if (candidates == null || candidates.isEmpty()) {
+            return List.of();
+        }
+        
+        Comparator<Club> ranking = Comparator
+            .comparingInt((Club club) -> score(club.key, normalized, tokens)).reversed()
+            .thenComparing(Comparator.comparingInt((Club club) -> club.entries.get()).reversed())
+            .thenComparingInt(club -> club.name.length())
+            .thenComparing(club -> club.name);
+        
+        return candidates.stream()
+            .map(clubs::get)
+            .filter(Objects::nonNull)
+            .sorted(ranking)
+            .limit(limit)
+            .map(club -> club.name)
+            .toList();
+    }
+    
+    private Map<String, Integer> liveEntries() {
+        Map<String, Integer> live = new HashMap<>();
+        for (Object[] row : entryRepository.countLiveEntriesGroupedByClubName()) {
+            if (row[0] != null) {
+                live.put((String) row[0], ((Long) row[1]).intValue());
+            }
+        }
+        return live;
+    }
+    
+    private void add(String clubName, int entries, boolean seeded) {
+        String key = key(clubName);
+        if (key == null) {
+            return;
+        }
+        
+        // Postings change under the key's lock, so a concurrent drop can't unindex a re-added club
+        clubs.compute(key, (k, existing) -> {
+            Club club = existing;
+            if (club == null) {
+                club = new Club(clubName.strip(), key, seeded);
+                index(key);
+            }
+            club.entries.addAndGet(entries);
+            return club;
+        });
+    }
+    
+    private void remove(String clubName, int entries) {
+        String key = key(clubName);
+        if (key != null) {
+            remove(clubs.get(key), key, entries);
+        }
+    }
+    
+    private void remove(Club expected, String key, int entries) {
+        if (expected == null) {
+            return;
+        }
+        clubs.computeIfPresent(key, (k, club) -> {
+            if (club != expected) {
+                // Dropped and re-added since the caller looked - its counts are already current
+                return club;
+            }
+            if (club.entries.addAndGet(-entries) > 0 || club.seeded) {
+                club.entries.updateAndGet(count -> Math.max(count, 0));
+                return club;
+            }
+            unindex(key);
+            return null;
+        });
+    }
+    
+    private void index(String key) {
+        for (String word : key.split(" ")) {
+            words.computeIfAbsent(word, w -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+        for (String gram : grams(key)) {
+            grams.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+    
+    private void unindex(String key) {
+        for (String word : key.split(" ")) {
+            words.computeIfPresent(word, (w, keys) -> keys.remove(key) && keys.isEmpty() ? null : keys);
+        }
+        for (String gram : grams(key)) {
+            grams.computeIfPresent(gram, (g, keys) -> keys.remove(key) && keys.isEmpty() ? null : keys);
+        }
+    }
+    
+    private static List<String> grams(String key) {
+        List<String> keyGrams = new ArrayList<>();
+        for (int i = 0; i + GRAM <= key.length(); i++) {
+            String gram = key.substring(i, i + GRAM);
+            if (gram.indexOf(' ') < 0) {
+                keyGrams.add(gram);
+            }
+        }
+        return keyGrams;
+    }
+    
+    private static String key(String clubName) {
+        if (clubName == null || clubName.isBlank()) {
+            return null;
+        }
+        String key = ClubNames.normalize(clubName);
+        return key.isEmpty() ? null : key;
+    }
+    
+    private Set<String> startingWith(String prefix) {
+        Set<String> matches = new HashSet<>();
+        words.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values().forEach(matches::addAll);
+        return matches;
+    }
+    
+    private Set<String> containing(String token) {
+        // Intersect from the rarest trigram, then confirm - trigrams can match out of order
+        List<Set<String>> postings = new ArrayList<>();
+        for (int i = 0; i + GRAM <= token.length(); i++) {
+            Set<String> posting = grams.get(token.substring(i, i + GRAM));
+            if (posting == null) {
+                return Set.of();
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        
+        Set<String> matches = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !matches.isEmpty(); i++) {
+            matches.retainAll(postings.get(i));
+        }
+        matches.removeIf(key -> !key.contains(token));
+        return matches;
+    }
+    
+    private static int score(String key, String query, String[] tokens) {
+        int score = 0;
+        if (key.equals(query)) {
+            score += 1000;
+        } else if (key.startsWith(query)) {
+            score += 500;
+        }
+        for (String token : tokens) {
+            if (key.startsWith(token) || key.contains(" " + token)) {
+                score += 10;
+            }
+        }
+        return score;
+    }
+    
+    private static boolean isFiller(String token) {
+        return FILLER_WORDS.stream().anyMatch(word -> word.startsWith(token));
+    }
+    
+    private static final class Club {
+        
+        final String name;
+        final String key;
+        final boolean seeded;
+        final AtomicInteger entries = new AtomicInteger();
+        
+        Club(String name, String key, boolean seeded) {
+            this.name = name;
+            this.key = key;
+            this.seeded = seeded;
+        }
+    }
+}
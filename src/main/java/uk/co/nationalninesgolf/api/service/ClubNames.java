@@ -0,0 +1,25 @@
+package uk.co.nationalninesgolf.api.service;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Club name normalization - "St. George's Hill G.C." and "st georges hill golf club" are the same club
+ */
+public final class ClubNames {
+    
+    private ClubNames() {
+    }
+    
+    public static String normalize(String clubName) {
+        String name = Normalizer.normalize(clubName, Normalizer.Form.NFKD)
+            .replaceAll("\\p{M}", "")
+            .toLowerCase(Locale.ROOT)
+            .replace("&", " and ")
+            .replaceAll("['’.]", "")
+            .replaceAll("[^a-z0-9]+", " ")
+            .trim();
+        
+        return name.replaceAll("\\bgolf club\\b", "gc");
+    }
+}
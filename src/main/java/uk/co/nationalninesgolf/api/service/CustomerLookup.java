@@ -0,0 +1,12 @@
+package uk.co.nationalninesgolf.api.service;
+
+import uk.co.nationalninesgolf.api.model.Entry;
+import uk.co.nationalninesgolf.api.model.Order;
+
+import java.util.List;
+
+/**
+ * Everything an email address has entered or ordered, newest first
+ */
+public record CustomerLookup(String email, List<Entry> entries, List<Order> orders) {
+}
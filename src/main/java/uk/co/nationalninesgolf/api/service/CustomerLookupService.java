@@ -0,0 +1,257 @@
+package uk.co.nationalninesgolf.api.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uk.co.nationalninesgolf.api.model.EmailLink;
+import uk.co.nationalninesgolf.api.model.Entry;
+import uk.co.nationalninesgolf.api.model.Order;
+import uk.co.nationalninesgolf.api.repository.EmailLinkRepository;
+import uk.co.nationalninesgolf.api.repository.EntryRepository;
+import uk.co.nationalninesgolf.api.repository.OrderRepository;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * "My entries and orders" by email.
+ * Every entry and order writes email_links rows for its addresses, so a lookup is an index scan
+ * on email_links plus primary key fetches. Access is by an emailed link carrying a signed,
+ * short-lived token - the email itself is never enough.
+ */
+@Service
+@Slf4j
+public class CustomerLookupService {
+    
+    private static final String HMAC = "HmacSHA256";
+    private static final int BACKFILL_CHUNK = 500;
+    
+    private final EmailLinkRepository linkRepository;
+    private final EntryRepository entryRepository;
+    private final OrderRepository orderRepository;
+    private final EmailService emailService;
+    
+    private final Map<String, Long> lastSent = new ConcurrentHashMap<>();
+    
+    @Value("${app.frontend-url:https://nationalninesgolf.co.uk}")
+    private String frontendUrl;
+    
+    @Value("${app.lookup.token-secret:}")
+    private String tokenSecret;
+    
+    @Value("${app.lookup.token-ttl:PT30M}")
+    private Duration tokenTtl;
+    
+    @Value("${app.lookup.resend-cooldown:PT2M}")
+    private Duration resendCooldown;
+    
+    private SecretKeySpec signingKey;
+    
+    public CustomerLookupService(EmailLinkRepository linkRepository,
+                                 EntryRepository entryRepository,
+                                 OrderRepository orderRepository,
+                                 EmailService emailService) {
+        this.linkRepository = linkRepository;
+        this.entryRepository = entryRepository;
+        this.orderRepository = orderRepository;
+        this.emailService = emailService;
+    }
+    
+    @PostConstruct
+    public void init() {
+        byte[] secret;
+        if (tokenSecret.isBlank()) {
+            log.warn("LOOKUP_TOKEN_SECRET not set - lookup links won't survive a restart or work across instances");
+            secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+        } else {
+            secret = tokenSecret.getBytes(StandardCharsets.UTF_8);
+        }
+        signingKey = new SecretKeySpec(secret, HMAC);
+        
+        backfill();
+    }
+    
+    public static String normalize(String email) {
+        return email == null ? "" : email.strip().toLowerCase(Locale.ROOT);
+    }
+    
+    public void link(Entry entry) {
+        link(EmailLink.TargetType.ENTRY, entry.getId(), entry.getPlayer1Email(), entry.getPlayer2Email());
+    }
+    
+    public void link(Order order) {
+        link(EmailLink.TargetType.ORDER, order.getId(), order.getCustomerEmail());
+    }
+    
+    /**
+     * Email a lookup link if the address has anything to show.
+     * Callers always get the same answer, so this can't be used to probe for customers.
+     */
+    public void requestLink(String email) {
+        String normalized = normalize(email);
+        long now = System.currentTimeMillis();
+        Long previous = lastSent.putIfAbsent(normalized, now);
+        if (previous != null) {
+            if (now - previous < resendCooldown.toMillis() || !lastSent.replace(normalized, previous, now)) {
+                log.info("Lookup link for {} requested again within {}", normalized, resendCooldown);
+                return;
+            }
+        }
+        
+        if (!linkRepository.existsByEmail(normalized)) {
+            log.info("Lookup link requested for {} - no entries or orders", normalized);
+            return;
+        }
+        
+        String url = frontendUrl + "/my-entries?token=" + issueToken(normalized);
+        try {
+            emailService.sendLookupLink(normalized, url, tokenTtl);
+        } catch (RuntimeException e) {
+            // Not sent - don't make them wait out the cooldown to try again
+            lastSent.remove(normalized, now);
+            throw e;
+        }
+    }
+    
+    /**
+     * Entries and orders for the email a valid token was issued to
+     */
+    public Optional<CustomerLookup> lookup(String token) {
+        return verifyToken(token).map(email -> new CustomerLookup(
+            email,
+            fetch(linkRepository.findTargetIds(email, EmailLink.TargetType.ENTRY), entryRepository::findAllById, Entry::getId),
+            fetch(linkRepository.findTargetIds(email, EmailLink.TargetType.ORDER), orderRepository::findWithItemsByIdIn, Order::getId)));
+    }
+    
+    @Scheduled(fixedDelayString = "${app.lookup.resend-cooldown:PT2M}")
+    public void sweep() {
+        long cutoff = System.currentTimeMillis() - resendCooldown.toMillis();
+        lastSent.values().removeIf(sentAt -> sentAt < cutoff);
+    }
+    
+    private void link(EmailLink.TargetType type, Long targetId, String... emails) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String email : emails) {
+            String normalized = normalize(email);
+            if (!normalized.isEmpty()) {
+                distinct.add(normalized);
+            }
+        }
+        try {
+            linkRepository.saveAll(distinct.stream()
+                .map(email -> EmailLink.builder().email(email).targetType(type).targetId(targetId).build())
+                .toList());
+        } catch (RuntimeException e) {
+            // The startup backfill picks it up
+            log.warn("Could not link {} {} to its email addresses", type, targetId, e);
+        }
+    }
+    
+    /**
+     * Link entries and orders written before email_links existed, or whose link write failed
+     */
+    private void backfill() {
+        int entries = backfill(linkRepository::findUnlinkedEntryIds, entryRepository::findAllById, (Entry entry) -> link(entry));
+        int orders = backfill(linkRepository::findUnlinkedOrderIds, orderRepository::findAllById, (Order order) -> link(order));
+        if (entries > 0 || orders > 0) {
+            log.info("Linked {} existing entries and {} existing orders to their email addresses", entries, orders);
+        }
+    }
+    
+    private <T> int backfill(UnlinkedIdFinder finder,
+                             Function<List<Long>, List<T>> load,
+                             Consumer<T> link) {
+        int linked = 0;
+        long afterId = 0L;
+        List<Long> ids;
+        do {
+            ids = finder.find(afterId, Limit.of(BACKFILL_CHUNK));
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<T> rows = load.apply(ids);
+            rows.forEach(link);
+            linked += rows.size();
+            afterId = ids.get(ids.size() - 1);
+        } while (ids.size() == BACKFILL_CHUNK);
+        return linked;
+    }
+    
+    private static <T> List<T> fetch(List<Long> ids, Function<List<Long>, List<T>> load, Function<T, Long> id) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return load.apply(ids).stream()
+            .sorted(Comparator.comparing(id).reversed())
+            .toList();
+    }
+    
+    /**
+     * base64url(email).expiryEpochSeconds.base64url(HMAC-SHA256 of the first two parts)
+     */
+    private String issueToken(String email) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String payload = encoder.encodeToString(email.getBytes(StandardCharsets.UTF_8))
+            + "." + Instant.now().plus(tokenTtl).getEpochSecond();
+        return payload + "." + encoder.encodeToString(sign(payload));
+    }
+    
+    private Optional<String> verifyToken(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) {
+            return Optional.empty();
+        }
+        try {
+            String payload = parts[0] + "." + parts[1];
+            byte[] signature = Base64.getUrlDecoder().decode(parts[2]);
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                return Optional.empty();
+            }
+            if (Instant.now().getEpochSecond() > Long.parseLong(parts[1])) {
+                return Optional.empty();
+            }
+            return Optional.of(new String(Base64.getUrlDecoder().decode(parts[0]), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+    
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(signingKey);
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign lookup token", e);
+        }
+    }
+    
+    @FunctionalInterface
+    private interface UnlinkedIdFinder {
+        List<Long> find(Long afterId, Limit limit);
+    }
+}
@@ -0,0 +1,110 @@
+package uk.co.nationalninesgolf.api.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uk.co.nationalninesgolf.api.model.Entry;
+import uk.co.nationalninesgolf.api.model.Order;
+import uk.co.nationalninesgolf.api.repository.EntryRepository;
+import uk.co.nationalninesgolf.api.repository.OrderRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admin dashboard figures from one grouped query per table.
+ * The snapshot is refreshed in the background, so a dashboard load normally costs no queries;
+ * it is only rebuilt inline if it is older than the TTL (e.g. straight after startup).
+ * Rebuilds are single-flight: while one runs, callers get the previous snapshot, or wait for
+ * this one if there is none yet, instead of all running the queries at once.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardService {
+    
+    // Order statuses that count towards revenue
+    private static final Set<Order.OrderStatus> REVENUE_STATUSES = EnumSet.of(
+        Order.OrderStatus.PAID, Order.OrderStatus.DELIVERED, Order.OrderStatus.COLLECTED);
+    
+    private final EntryRepository entryRepository;
+    private final OrderRepository orderRepository;
+    private final EventCatalog eventCatalog;
+    
+    @Value("${app.dashboard.ttl:PT1M}")
+    private Duration ttl;
+    
+    private volatile DashboardSnapshot snapshot;
+    
+    // A lock rather than synchronized - virtual threads don't pin while it waits on the queries
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    
+    public DashboardSnapshot getSnapshot() {
+        DashboardSnapshot current = snapshot;
+        if (isFresh(current)) {
+            return current;
+        }
+        if (current != null && !refreshLock.tryLock()) {
+            // Someone else is rebuilding it - the stale one will do until then
+            return current;
+        }
+        if (current == null) {
+            refreshLock.lock();
+        }
+        try {
+            current = snapshot;
+            return isFresh(current) ? current : build();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.dashboard.refresh-interval:PT20S}")
+    public DashboardSnapshot refresh() {
+        refreshLock.lock();
+        try {
+            return build();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+    
+    private boolean isFresh(DashboardSnapshot current) {
+        return current != null && !current.generatedAt().plus(ttl).isBefore(LocalDateTime.now());
+    }
+    
+    private DashboardSnapshot build() {
+        Map<String, Long> paidEntriesByEvent = new HashMap<>();
+        BigDecimal entryFees = BigDecimal.ZERO;
+        for (Object[] row : entryRepository.summarizeByEventAndStatus()) {
+            if (row[1] == Entry.PaymentStatus.PAID) {
+                paidEntriesByEvent.put((String) row[0], ((Number) row[2]).longValue());
+                entryFees = entryFees.add(row[3] != null ? (BigDecimal) row[3] : BigDecimal.ZERO);
+            }
+        }
+        
+        Map<String, Long> ordersByStatus = new HashMap<>();
+        BigDecimal revenue = BigDecimal.ZERO;
+        for (Object[] row : orderRepository.summarizeByStatus()) {
+            Order.OrderStatus status = (Order.OrderStatus) row[0];
+            ordersByStatus.put(status.name(), ((Number) row[1]).longValue());
+            if (REVENUE_STATUSES.contains(status) && row[2] != null) {
+                revenue = revenue.add((BigDecimal) row[2]);
+            }
+        }
+        
+        DashboardSnapshot fresh = new DashboardSnapshot(eventCatalog.all(),
+            Map.copyOf(paidEntriesByEvent), entryFees, Map.copyOf(ordersByStatus), revenue, LocalDateTime.now());
+        snapshot = fresh;
+        log.debug("Dashboard snapshot refreshed");
+        return fresh;
+    }
+}
@@ -0,0 +1,56 @@
+package uk.co.nationalninesgolf.api.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point-in-time admin dashboard figures
+ */
+public record DashboardSnapshot(
+    List<EventInfo> events,
+    Map<String, Long> paidEntriesByEvent,
+    BigDecimal totalEntryFees,
+    Map<String, Long> ordersByStatus,
+    BigDecimal totalRevenue,
+    LocalDateTime generatedAt
+) {
+    
+    public long paidEntries(String event) {
+        return paidEntriesByEvent.getOrDefault(event, 0L);
+    }
+    
+    public long orders(String status) {
+        return ordersByStatus.getOrDefault(status, 0L);
+    }
+    
+    /**
+     * Dashboard response body
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> stats = new HashMap<>();
+        
+        // Entry stats
+        for (EventInfo event : events) {
+            stats.put(event.statsKey(), paidEntries(event.code()));
+        }
+        
+        // Order stats
+        stats.put("pendingOrders", orders("PENDING"));
+        stats.put("paidOrders", orders("PAID"));
+        stats.put("processingOrders", orders("PROCESSING"));
+        stats.put("fulfilledOrders", orders("DELIVERED") + orders("COLLECTED"));
+        
+        // Revenue
+        stats.put("totalRevenue", totalRevenue);
+        
+        // Entry fees (sum of fees actually charged on paid entries)
+        stats.put("totalEntryFees", totalEntryFees);
+        
+        stats.put("generatedAt", generatedAt);
+        
+        return stats;
+    }
+}
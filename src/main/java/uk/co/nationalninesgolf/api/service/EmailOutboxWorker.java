@@ -0,0 +1,179 @@
+package uk.co.nationalninesgolf.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import uk.co.nationalninesgolf.api.model.OutboxEmail;
+import uk.co.nationalninesgolf.api.repository.OutboxEmailRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the email outbox on a bounded worker pool.
+ * Polls from its own thread, so a slow SMTP batch never holds up the shared @Scheduled jobs.
+ * Failed sends are retried with exponential backoff until max-attempts, then marked FAILED.
+ */
+@Component
+@Slf4j
+public class EmailOutboxWorker {
+    
+    private final OutboxEmailRepository outboxRepository;
+    private final JavaMailSender mailSender;
+    private final TaskExecutor emailExecutor;
+    private final ScheduledExecutorService poller;
+    
+    private final Timer sendTimer;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final AtomicLong queueDepth = new AtomicLong();
+    
+    @Value("${spring.mail.username:noreply@nationalninesgolf.co.uk}")
+    private String fromEmail;
+    
+    @Value("${app.email.batch-size:20}")
+    private int batchSize;
+    
+    @Value("${app.email.max-attempts:8}")
+    private int maxAttempts;
+    
+    @Value("${app.email.backoff-base:PT30S}")
+    private Duration backoffBase;
+    
+    @Value("${app.email.backoff-max:PT1H}")
+    private Duration backoffMax;
+    
+    @Value("${app.email.lease:PT5M}")
+    private Duration lease;
+    
+    @Value("${app.email.poll-interval:PT2S}")
+    private Duration pollInterval;
+    
+    public EmailOutboxWorker(OutboxEmailRepository outboxRepository,
+                             JavaMailSender mailSender,
+                             @Qualifier("emailExecutor") TaskExecutor emailExecutor,
+                             MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.mailSender = mailSender;
+        this.emailExecutor = emailExecutor;
+        this.poller = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("email-poller").factory());
+        this.sendTimer = Timer.builder("email.send.latency")
+            .description("SMTP send time per email")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+        this.sentCounter = meterRegistry.counter("email.sent");
+        this.failedCounter = meterRegistry.counter("email.failed");
+        Gauge.builder("email.outbox.depth", queueDepth, AtomicLong::get)
+            .description("Emails waiting in the outbox")
+            .register(meterRegistry);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        poller.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    private void poll() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            // Keep polling - a failed run would otherwise cancel the schedule
+            log.error("Email outbox poll failed", e);
+        }
+    }
+    
+    /**
+     * Claim a batch of due emails and send them, waiting for the batch before polling again
+     */
+    public void drain() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> dueIds = outboxRepository.findDueIds(now, PageRequest.of(0, batchSize));
+        
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+        for (Long id : dueIds) {
+            if (outboxRepository.claim(id, now, now.plus(lease)) == 1) {
+                inFlight.add(CompletableFuture.runAsync(() -> send(id), emailExecutor));
+            }
+        }
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).join();
+        
+        queueDepth.set(outboxRepository.countByStatus(OutboxEmail.Status.PENDING));
+    }
+    
+    private void send(Long id) {
+        OutboxEmail email = outboxRepository.findById(id).orElse(null);
+        if (email == null) return;
+        
+        try {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(fromEmail);
+            message.setTo(email.getRecipient());
+            if (email.getReplyTo() != null) {
+                message.setReplyTo(email.getReplyTo());
+            }
+            message.setSubject(email.getSubject());
+            message.setText(email.getBody());
+            
+            sendTimer.record(() -> mailSender.send(message));
+            
+            email.setStatus(OutboxEmail.Status.SENT);
+            email.setSentAt(LocalDateTime.now());
+            email.setLastError(null);
+            sentCounter.increment();
+        
+        } catch (Exception e) {
+            int attempts = email.getAttempts() + 1;
+            email.setAttempts(attempts);
+            email.setLastError(abbreviate(e.getMessage()));
+            
+            if (attempts >= maxAttempts) {
+                email.setStatus(OutboxEmail.Status.FAILED);
+                failedCounter.increment();
+                log.error("Giving up on email {} to {} after {} attempts: {}",
+                    id, email.getRecipient(), attempts, e.getMessage());
+            } else {
+                email.setStatus(OutboxEmail.Status.PENDING);
+                email.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+                log.warn("Failed to send email {} to {} (attempt {}): {}",
+                    id, email.getRecipient(), attempts, e.getMessage());
+            }
+        }
+        
+        outboxRepository.save(email);
+    }
+    
+    private Duration backoff(int attempts) {
+        Duration delay = backoffBase.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(backoffMax) > 0 ? backoffMax : delay;
+    }
+    
+    private static String abbreviate(String message) {
+        if (message == null) return null;
+        return message.length() > 255 ? message.substring(0, 255) : message;
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        poller.shutdown();
+        poller.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
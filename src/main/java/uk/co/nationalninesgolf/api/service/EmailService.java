@@ -3,25 +3,23 @@ package uk.co.nationalninesgolf.api.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import uk.co.nationalninesgolf.api.model.Entry;
 import uk.co.nationalninesgolf.api.model.Order;
+import uk.co.nationalninesgolf.api.model.OutboxEmail;
+import uk.co.nationalninesgolf.api.repository.OutboxEmailRepository;
 
-import jakarta.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.time.LocalDateTime;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
     
-    private final JavaMailSender mailSender;
-    
-    @Value("${spring.mail.username:noreply@nationalninesgolf.co.uk}")
-    private String fromEmail;
+    private final OutboxEmailRepository outboxRepository;
+    private final EventCatalog eventCatalog;
     
     @Value("${app.admin-email:info@nationalninesgolf.co.uk}")
     private String adminEmail;
@@ -29,232 +27,349 @@ public class EmailService {
     /**
      * Send entry confirmation to customer
      */
-    @Async
     public void sendEntryConfirmation(Entry entry) {
-        try {
-            String eventName = entry.getEvent().contains("KENT") ? "Kent Nines 2026" : "Essex Nines 2026";
-            
-            String subject = "Entry Confirmed - " + eventName;
-            String body = String.format("""
-                Dear %s and %s,
-                
-                Thank you for entering %s!
-                
-                Your entry details:
-                - Club: %s
-                - Players: %s (HI: %s) & %s (HI: %s)
-                - Entry Fee: £%s
-                
-                %s
-                
-                If you have any questions, please reply to this email or contact us at info@nationalninesgolf.co.uk.
-                
-                Good luck!
-                
-                The National Nines Team
-                https://nationalninesgolf.co.uk
-                """,
-                entry.getPlayer1Name(),
-                entry.getPlayer2Name(),
-                eventName,
-                entry.getClubName(),
-                entry.getPlayer1Name(),
-                entry.getPlayer1Handicap(),
-                entry.getPlayer2Name(),
-                entry.getPlayer2Handicap(),
-                entry.getEntryFee(),
-                entry.getPaymentStatus() == Entry.PaymentStatus.PAID 
-                    ? "Your payment has been received. You're all set!"
-                    : "We're awaiting your payment confirmation."
-            );
-            
-            sendEmail(entry.getPlayer1Email(), subject, body);
-            
-            // Also send to player 2 if different email
-            if (!entry.getPlayer1Email().equalsIgnoreCase(entry.getPlayer2Email())) {
-                sendEmail(entry.getPlayer2Email(), subject, body);
-            }
-            
-            log.info("Entry confirmation sent to {} and {}", 
-                entry.getPlayer1Email(), entry.getPlayer2Email());
-                
-        } catch (Exception e) {
-            log.error("Failed to send entry confirmation", e);
+        String eventName = eventCatalog.displayName(entry.getEvent());
+        
+        String subject = "Entry Confirmed - " + eventName;
+        String body = String.format("""
+            Dear %s and %s,
+            
+            Thank you for entering %s!
+            
+            Your entry details:
+            - Club: %s
+            - Players: %s (HI: %s) & %s (HI: %s)
+            - Entry Fee: £%s
+            
+            %s
+            
+            If you have any questions, please reply to this email or contact us at info@nationalninesgolf.co.uk.
+            
+            Good luck!
+            
+            The National Nines Team
+            https://nationalninesgolf.co.uk
+            """,
+            entry.getPlayer1Name(),
+            entry.getPlayer2Name(),
+            eventName,
+            entry.getClubName(),
+            entry.getPlayer1Name(),
+            entry.getPlayer1Handicap(),
+            entry.getPlayer2Name(),
+            entry.getPlayer2Handicap(),
+            entry.getEntryFee(),
+            entry.getPaymentStatus() == Entry.PaymentStatus.PAID 
+                ? "Your payment has been received. You're all set!"
+                : "We're awaiting your payment confirmation."
+        );
+        
+        enqueue(entry.getPlayer1Email(), subject, body);
+        
+        // Also send to player 2 if different email
+        if (!entry.getPlayer1Email().equalsIgnoreCase(entry.getPlayer2Email())) {
+            enqueue(entry.getPlayer2Email(), subject, body);
+        }
+        
+        log.info("Entry confirmation queued for {} and {}", 
+            entry.getPlayer1Email(), entry.getPlayer2Email());
+    }
+    
+    /**
+     * Tell a waitlisted pair they have a place, with the link to pay for it
+     */
+    public void sendWaitlistPromotion(Entry entry, String checkoutUrl) {
+        String eventName = eventCatalog.displayName(entry.getEvent());
+        
+        String subject = "A place has opened up - " + eventName;
+        String body = String.format("""
+            Dear %s and %s,
+            
+            Good news - a place has opened up in %s for %s.
+            
+            %s
+            
+            If you no longer wish to play, simply ignore this email and the place will pass to the next pair on the waitlist.
+            
+            The National Nines Team
+            https://nationalninesgolf.co.uk
+            """,
+            entry.getPlayer1Name(),
+            entry.getPlayer2Name(),
+            eventName,
+            entry.getClubName(),
+            checkoutUrl != null
+                ? "Please complete your payment of £" + entry.getEntryFee() + " to secure it:\n" + checkoutUrl
+                : "Please reply to this email and we'll send you a payment link to secure it."
+        );
+        
+        enqueue(entry.getPlayer1Email(), subject, body);
+        
+        // Also send to player 2 if different email
+        if (!entry.getPlayer1Email().equalsIgnoreCase(entry.getPlayer2Email())) {
+            enqueue(entry.getPlayer2Email(), subject, body);
         }
+        
+        log.info("Waitlist promotion queued for entry {}", entry.getId());
+    }
+    
+    /**
+     * Send a "my entries and orders" link
+     */
+    public void sendLookupLink(String email, String lookupUrl, Duration validFor) {
+        String body = String.format("""
+            Hello,
+            
+            Here is your link to view your National Nines entries and orders:
+            %s
+            
+            The link works for %d minutes. If you didn't ask for it, you can ignore this email.
+            
+            The National Nines Team
+            https://nationalninesgolf.co.uk
+            """,
+            lookupUrl,
+            validFor.toMinutes()
+        );
+        
+        enqueue(email, "Your entries and orders - National Nines Golf", body);
+        log.info("Lookup link queued for {}", email);
     }
     
     /**
      * Send order confirmation to customer
      */
-    @Async
     public void sendOrderConfirmation(Order order) {
-        try {
-            StringBuilder itemsList = new StringBuilder();
-            order.getItems().forEach(item -> {
-                itemsList.append(String.format("- %s x%d: £%.2f%n",
-                    item.getProductName(),
-                    item.getQuantity(),
-                    item.getLineTotal()));
-            });
-            
-            String deliveryInfo = order.getDeliveryMethod() == Order.DeliveryMethod.COLLECTION
-                ? "Collection (we'll contact you to arrange pickup)"
-                : String.format("Shipping to:%n  %s%n  %s, %s",
-                    order.getShippingAddress(),
-                    order.getShippingCity(),
-                    order.getShippingPostcode());
-            
-            String subject = "Order Confirmed - " + order.getOrderNumber();
-            String body = String.format("""
-                Dear %s,
-                
-                Thank you for your order!
-                
-                Order: %s
-                
-                Items:
-                %s
-                Subtotal: £%.2f
-                Shipping: £%.2f
-                Total: £%.2f
-                
-                Delivery: %s
-                
-                %s
-                
-                If you have any questions, please reply to this email or contact us at info@nationalninesgolf.co.uk.
-                
-                Thank you for supporting National Nines Golf!
-                
-                The National Nines Team
-                https://nationalninesgolf.co.uk
-                """,
-                order.getCustomerName(),
-                order.getOrderNumber(),
-                itemsList,
-                order.getSubtotal(),
-                order.getShippingCost(),
-                order.getTotal(),
-                deliveryInfo,
-                order.getStatus() == Order.OrderStatus.PAID
-                    ? "Your payment has been received. We'll process your order shortly!"
-                    : "We're awaiting your payment confirmation."
-            );
-            
-            sendEmail(order.getCustomerEmail(), subject, body);
-            
-            log.info("Order confirmation sent to {}", order.getCustomerEmail());
-            
-        } catch (Exception e) {
-            log.error("Failed to send order confirmation", e);
-        }
+        StringBuilder itemsList = new StringBuilder();
+        order.getItems().forEach(item -> {
+            itemsList.append(String.format("- %s x%d: £%.2f%n",
+                item.getProductName(),
+                item.getQuantity(),
+                item.getLineTotal()));
+        });
+        
+        String deliveryInfo = order.getDeliveryMethod() == Order.DeliveryMethod.COLLECTION
+            ? "Collection (we'll contact you to arrange pickup)"
+            : String.format("Shipping to:%n  %s%n  %s, %s",
+                order.getShippingAddress(),
+                order.getShippingCity(),
+                order.getShippingPostcode());
+        
+        String subject = "Order Confirmed - " + order.getOrderNumber();
+        String body = String.format("""
+            Dear %s,
+            
+            Thank you for your order!
+            
+            Order: %s
+            
+            Items:
+            %s
+            Subtotal: £%.2f
+            Shipping: £%.2f
+            Total: £%.2f
+            
+            Delivery: %s
+            
+            %s
+            
+            If you have any questions, please reply to this email or contact us at info@nationalninesgolf.co.uk.
+            
+            Thank you for supporting National Nines Golf!
+            
+            The National Nines Team
+            https://nationalninesgolf.co.uk
+            """,
+            order.getCustomerName(),
+            order.getOrderNumber(),
+            itemsList,
+            order.getSubtotal(),
+            order.getShippingCost(),
+            order.getTotal(),
+            deliveryInfo,
+            order.getStatus() == Order.OrderStatus.PAID
+                ? "Your payment has been received. We'll process your order shortly!"
+                : "We're awaiting your payment confirmation."
+        );
+        
+        enqueue(order.getCustomerEmail(), subject, body);
+        
+        log.info("Order confirmation queued for {}", order.getCustomerEmail());
     }
     
     /**
      * Notify admin of new entry
      */
-    @Async
     public void notifyAdminNewEntry(Entry entry) {
-        try {
-            String eventName = entry.getEvent().contains("KENT") ? "Kent Nines 2026" : "Essex Nines 2026";
-            
-            String subject = "New Entry - " + eventName + " - " + entry.getClubName();
-            String body = String.format("""
-                New entry received for %s
-                
-                Club: %s
-                Player 1: %s (%s) - HI: %s
-                Player 2: %s (%s) - HI: %s
-                Phone: %s
-                Entry Fee: £%s
-                Payment: %s
-                Marketing Opt-in: %s
-                
-                View all entries: https://api.nationalninesgolf.co.uk/api/admin/entries
-                """,
-                eventName,
-                entry.getClubName(),
-                entry.getPlayer1Name(),
-                entry.getPlayer1Email(),
-                entry.getPlayer1Handicap(),
-                entry.getPlayer2Name(),
-                entry.getPlayer2Email(),
-                entry.getPlayer2Handicap(),
-                entry.getContactPhone(),
-                entry.getEntryFee(),
-                entry.getPaymentStatus(),
-                entry.isMarketingOptIn() ? "Yes" : "No"
-            );
-            
-            sendEmail(adminEmail, subject, body);
-            
-        } catch (Exception e) {
-            log.error("Failed to notify admin of new entry", e);
-        }
+        String eventName = eventCatalog.displayName(entry.getEvent());
+        
+        String subject = "New Entry - " + eventName + " - " + entry.getClubName();
+        String body = String.format("""
+            New entry received for %s
+            
+            Club: %s
+            Player 1: %s (%s) - HI: %s
+            Player 2: %s (%s) - HI: %s
+            Phone: %s
+            Entry Fee: £%s
+            Payment: %s
+            Marketing Opt-in: %s
+            
+            View all entries: https://api.nationalninesgolf.co.uk/api/admin/entries
+            """,
+            eventName,
+            entry.getClubName(),
+            entry.getPlayer1Name(),
+            entry.getPlayer1Email(),
+            entry.getPlayer1Handicap(),
+            entry.getPlayer2Name(),
+            entry.getPlayer2Email(),
+            entry.getPlayer2Handicap(),
+            entry.getContactPhone(),
+            entry.getEntryFee(),
+            entry.getPaymentStatus(),
+            entry.isMarketingOptIn() ? "Yes" : "No"
+        );
+        
+        enqueue(adminEmail, subject, body);
     }
     
     /**
      * Notify admin of new order
      */
-    @Async
     public void notifyAdminNewOrder(Order order) {
-        try {
-            StringBuilder itemsList = new StringBuilder();
-            order.getItems().forEach(item -> {
-                itemsList.append(String.format("- %s x%d: £%.2f%n",
-                    item.getProductName(),
-                    item.getQuantity(),
-                    item.getLineTotal()));
-            });
-            
-            String subject = "New Order - " + order.getOrderNumber();
-            String body = String.format("""
-                New order received!
-                
-                Order: %s
-                Customer: %s (%s)
-                Phone: %s
-                
-                Items:
-                %s
-                Total: £%.2f
-                
-                Delivery: %s
-                Address: %s, %s %s
-                Notes: %s
-                
-                View orders to fulfill: https://api.nationalninesgolf.co.uk/api/admin/orders/to-fulfill
-                """,
-                order.getOrderNumber(),
-                order.getCustomerName(),
-                order.getCustomerEmail(),
-                order.getCustomerPhone(),
-                itemsList,
-                order.getTotal(),
-                order.getDeliveryMethod(),
-                order.getShippingAddress() != null ? order.getShippingAddress() : "-",
-                order.getShippingCity() != null ? order.getShippingCity() : "",
-                order.getShippingPostcode() != null ? order.getShippingPostcode() : "",
-                order.getNotes() != null ? order.getNotes() : "-"
-            );
-            
-            sendEmail(adminEmail, subject, body);
-            
-        } catch (Exception e) {
-            log.error("Failed to notify admin of new order", e);
-        }
+        StringBuilder itemsList = new StringBuilder();
+        order.getItems().forEach(item -> {
+            itemsList.append(String.format("- %s x%d: £%.2f%n",
+                item.getProductName(),
+                item.getQuantity(),
+                item.getLineTotal()));
+        });
+        
+        String subject = "New Order - " + order.getOrderNumber();
+        String body = String.format("""
+            New order received!
+            
+            Order: %s
+            Customer: %s (%s)
+            Phone: %s
+            
+            Items:
+            %s
+            Total: £%.2f
+            
+            Delivery: %s
+            Address: %s, %s %s
+            Notes: %s
+            
+            View orders to fulfill: https://api.nationalninesgolf.co.uk/api/admin/orders/to-fulfill
+            """,
+            order.getOrderNumber(),
+            order.getCustomerName(),
+            order.getCustomerEmail(),
+            order.getCustomerPhone(),
+            itemsList,
+            order.getTotal(),
+            order.getDeliveryMethod(),
+            order.getShippingAddress() != null ? order.getShippingAddress() : "-",
+            order.getShippingCity() != null ? order.getShippingCity() : "",
+            order.getShippingPostcode() != null ? order.getShippingPostcode() : "",
+            order.getNotes() != null ? order.getNotes() : "-"
+        );
+        
+        enqueue(adminEmail, subject, body);
     }
     
-    private void sendEmail(String to, String subject, String body) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(body);
-            mailSender.send(message);
-        } catch (Exception e) {
-            log.error("Failed to send email to {}: {}", to, e.getMessage());
-        }
+    /**
+     * Tell admin a Stripe payment landed on an entry or order that was no longer awaiting one
+     */
+    public void notifyAdminUnmatchedPayment(String target, String status, String sessionId, String paymentIntentId) {
+        String subject = "ACTION NEEDED - Payment received for " + target + " (" + status + ")";
+        String body = String.format("""
+            A Stripe payment completed for %s, which is %s rather than awaiting payment.
+            
+            Checkout session: %s
+            Payment intent: %s
+            
+            The customer has been charged. Either reinstate it or refund the payment in Stripe:
+            https://dashboard.stripe.com/payments/%s
+            """,
+            target,
+            status,
+            sessionId,
+            paymentIntentId,
+            paymentIntentId
+        );
+        
+        enqueue(adminEmail, subject, body);
+    }
+    
+    /**
+     * Queue contact form emails - admin notification plus confirmation to the sender - in one
+     * transaction. Sending happens later in EmailOutboxWorker, so SMTP failures never reach the caller.
+     */
+    @Transactional
+    public void sendContactMessages(String name, String email, String phone, String subject, String message) {
+        String adminBody = String.format("""
+            New contact form submission
+            
+            From: %s (%s)
+            Phone: %s
+            Subject: %s
+            
+            Message:
+            %s
+            
+            Received: %s
+            """,
+            name,
+            email,
+            phone != null ? phone : "-",
+            subject,
+            message,
+            LocalDateTime.now()
+        );
+        
+        String userBody = String.format("""
+            Dear %s,
+            
+            Thank you for contacting National Nines Golf!
+            
+            We've received your message and will get back to you as soon as possible.
+            
+            Your message:
+            ---
+            Subject: %s
+            
+            %s
+            ---
+            
+            Best regards,
+            The National Nines Team
+            https://nationalninesgolf.co.uk
+            """,
+            name,
+            subject,
+            message
+        );
+        
+        enqueue(adminEmail, email, "Contact Form: " + subject, adminBody);
+        enqueue(email, "We've received your message - National Nines Golf", userBody);
+    }
+    
+    private void enqueue(String to, String subject, String body) {
+        enqueue(to, null, subject, body);
+    }
+    
+    /**
+     * Write the email to the outbox - EmailOutboxWorker does the SMTP send
+     */
+    private void enqueue(String to, String replyTo, String subject, String body) {
+        outboxRepository.save(OutboxEmail.builder()
+            .recipient(to)
+            .replyTo(replyTo)
+            .subject(subject)
+            .body(body)
+            .build());
     }
 }
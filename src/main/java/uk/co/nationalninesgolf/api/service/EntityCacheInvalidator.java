@@ -0,0 +1,147 @@
+package uk.co.nationalninesgolf.api.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+import uk.co.nationalninesgolf.api.model.Entry;
+import uk.co.nationalninesgolf.api.model.Order;
+import uk.co.nationalninesgolf.api.model.OrderItem;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Keeps every instance's second-level cache in step with the database.
+ * Triggers on entries, orders and order_items NOTIFY entity_cache with the changed row when its
+ * transaction commits - including bulk UPDATEs and changes made by other instances. Each instance
+ * LISTENs on its own connection (outside the pool) and evicts the rows named. Notifications sent
+ * while the connection was down are lost, so all regions are cleared on every (re)connect.
+ * PostgreSQL only - with H2 there is a single instance and Hibernate's own invalidation is enough.
+ */
+@Component
+@Slf4j
+public class EntityCacheInvalidator {
+    
+    private static final String CHANNEL = "entity_cache";
+    private static final String ORDER_ITEMS_ROLE = Order.class.getName() + ".items";
+    
+    private final DataSourceProperties dataSourceProperties;
+    private final EntityManagerFactory entityManagerFactory;
+    private final MeterRegistry meterRegistry;
+    
+    // How long a poll waits for notifications before checking the connection is still alive
+    @Value("${app.entity-cache.listen-timeout:PT10S}")
+    private Duration listenTimeout;
+    
+    @Value("${app.entity-cache.reconnect-delay:PT5S}")
+    private Duration reconnectDelay;
+    
+    private volatile boolean running;
+    private Thread listener;
+    
+    public EntityCacheInvalidator(DataSourceProperties dataSourceProperties,
+                                  EntityManagerFactory entityManagerFactory,
+                                  MeterRegistry meterRegistry) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.entityManagerFactory = entityManagerFactory;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    @PostConstruct
+    public void start() {
+        if (!dataSourceProperties.determineUrl().startsWith("jdbc:postgresql:")) {
+            log.info("Entity cache invalidation across instances is off - not running on PostgreSQL");
+            return;
+        }
+        running = true;
+        listener = Thread.ofPlatform().daemon().name("entity-cache-listener").start(this::listen);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+    
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                cache().evictAllRegions();
+                log.info("Listening for entity cache invalidations");
+                
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) listenTimeout.toMillis());
+                    if (notifications == null || notifications.length == 0) {
+                        if (!connection.isValid(5)) {
+                            throw new SQLException("Listener connection is no longer valid");
+                        }
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        evict(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Entity cache listener lost its connection - reconnecting in {}", reconnectDelay, e);
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Payload is "table:id", or "order_items:id:order_id"
+     */
+    private void evict(String payload) {
+        String[] parts = payload.split(":");
+        try {
+            Long id = Long.valueOf(parts[1]);
+            switch (parts[0]) {
+                case "entries" -> cache().evictEntityData(Entry.class, id);
+                case "orders" -> cache().evictEntityData(Order.class, id);
+                case "order_items" -> {
+                    cache().evictEntityData(OrderItem.class, id);
+                    cache().evictCollectionData(ORDER_ITEMS_ROLE, Long.valueOf(parts[2]));
+                }
+                default -> {
+                    log.warn("Unexpected entity cache notification {}", payload);
+                    return;
+                }
+            }
+            meterRegistry.counter("entity.cache.invalidations", "table", parts[0]).increment();
+        } catch (RuntimeException e) {
+            log.warn("Unreadable entity cache notification {}", payload, e);
+        }
+    }
+    
+    private Cache cache() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+}
@@ -0,0 +1,36 @@
+package uk.co.nationalninesgolf.api.service;
+
+import uk.co.nationalninesgolf.api.model.EntrySummary;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in an event's entry list - the (createdAt, id) of the last entry on a page.
+ * Encoded as an opaque URL-safe string for the public API.
+ */
+public record EntryCursor(LocalDateTime createdAt, Long id) {
+    
+    public static EntryCursor after(EntrySummary entry) {
+        return new EntryCursor(entry.createdAt(), entry.id());
+    }
+    
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static EntryCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new EntryCursor(
+                LocalDateTime.parse(raw.substring(0, separator)),
+                Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
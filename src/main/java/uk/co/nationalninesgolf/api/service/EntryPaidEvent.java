@@ -0,0 +1,7 @@
+package uk.co.nationalninesgolf.api.service;
+
+/**
+ * Published when an entry moves to PAID - listeners run after the transaction commits
+ */
+public record EntryPaidEvent(Long entryId, String event) {
+}
@@ -0,0 +1,7 @@
+package uk.co.nationalninesgolf.api.service;
+
+/**
+ * Published when a waitlisted entry is given a place in the field
+ */
+public record EntryPromotedEvent(Long entryId, String event) {
+}
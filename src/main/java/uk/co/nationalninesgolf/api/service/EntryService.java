@@ -2,14 +2,20 @@ package uk.co.nationalninesgolf.api.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import uk.co.nationalninesgolf.api.model.Entry;
+import uk.co.nationalninesgolf.api.model.EntrySummary;
 import uk.co.nationalninesgolf.api.repository.EntryRepository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @Service
@@ -18,26 +24,82 @@ import java.util.Optional;
 public class EntryService {
     
     private final EntryRepository entryRepository;
+    private final PaidEntryCounter paidEntryCounter;
+    private final ClubClaims clubClaims;
+    private final EventCapacity eventCapacity;
+    private final EventCatalog eventCatalog;
+    private final ClubNameIndex clubNameIndex;
+    private final CustomerLookupService customerLookup;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
     
-    // Entry fees
-    private static final BigDecimal KENT_NINES_FEE = new BigDecimal("150.00");
-    private static final BigDecimal ESSEX_NINES_FEE = new BigDecimal("50.00");
-    
-    @Transactional
-    public Entry createEntry(Entry entry) {
-        // Set entry fee based on event
-        if (entry.getEvent().contains("KENT")) {
-            entry.setEntryFee(KENT_NINES_FEE);
-        } else if (entry.getEvent().contains("ESSEX")) {
-            entry.setEntryFee(ESSEX_NINES_FEE);
+    /**
+     * Insert an entry, reserving the club's place in the event and a slot in the field.
+     * Returns empty if the club already holds a place - the in-memory claim set rejects known
+     * duplicates without a query, and the unique (event, club_key) constraint settles races.
+     * When the field is full the entry is saved as WAITLISTED instead of PENDING; the slot is
+     * taken in the insert's transaction, so a failed insert never keeps one.
+     */
+    public Optional<Entry> createEntry(Entry entry) {
+        String clubKey = ClubNames.normalize(entry.getClubName());
+        if (!clubClaims.tryClaim(entry.getEvent(), clubKey)) {
+            log.info("Rejected entry for {} from {} - club already entered", entry.getEvent(), entry.getClubName());
+            return Optional.empty();
         }
         
-        entry.setPaymentStatus(Entry.PaymentStatus.PENDING);
+        entry.setEntryFee(getEntryFee(entry.getEvent()));
+        
+        entry.setClubKey(clubKey);
+        
+        Entry saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                boolean held = eventCapacity.tryHold(entry.getEvent());
+                entry.setPaymentStatus(held ? Entry.PaymentStatus.PENDING : Entry.PaymentStatus.WAITLISTED);
+                return entryRepository.saveAndFlush(entry);
+            });
+        } catch (RuntimeException e) {
+            if (e instanceof DataIntegrityViolationException violation && isClubConflict(violation)) {
+                // Claimed through another instance - the club's place is taken
+                log.info("Rejected entry for {} from {} - club already entered", entry.getEvent(), entry.getClubName());
+                return Optional.empty();
+            }
+            clubClaims.release(entry.getEvent(), clubKey);
+            throw e;
+        }
         
-        Entry saved = entryRepository.save(entry);
-        log.info("Created entry {} for {} from {}", saved.getId(), saved.getEvent(), saved.getClubName());
+        clubNameIndex.record(saved.getClubName());
+        customerLookup.link(saved);
+        log.info("Created {} entry {} for {} from {}", saved.getPaymentStatus(), saved.getId(), saved.getEvent(), saved.getClubName());
         
-        return saved;
+        return Optional.of(saved);
+    }
+    
+    /**
+     * Withdraw a new PENDING entry whose checkout could not be opened, giving its slot to the
+     * head of the waitlist and its club's place back so the club can simply try again. False if
+     * it was no longer PENDING.
+     */
+    public boolean withdraw(Entry entry) {
+        if (!eventCapacity.withdrawPending(entry)) {
+            return false;
+        }
+        clubClaims.release(entry.getEvent(), entry.getClubKey());
+        clubNameIndex.release(entry.getClubName());
+        log.info("Withdrew entry {} from {} - checkout could not be opened", entry.getId(), entry.getClubName());
+        return true;
+    }
+    
+    /**
+     * Position of a waitlisted entry, 1 being next in line
+     */
+    public int waitlistPosition(Entry entry) {
+        return eventCapacity.position(entry);
+    }
+    
+    private static boolean isClubConflict(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains("uk_entries_event_club_key");
     }
     
     public Optional<Entry> findById(Long id) {
@@ -52,23 +114,62 @@ public class EntryService {
         return entryRepository.findByEventAndPaymentStatus(event, Entry.PaymentStatus.PAID);
     }
     
+    public Optional<EntrySummary> findSummaryById(Long id) {
+        return entryRepository.findSummaryById(id);
+    }
+    
+    /**
+     * One keyset page of an event's entries, oldest first. Pass a null cursor for the first page.
+     */
+    public List<EntrySummary> findPageByEvent(String event, EntryCursor after, int size) {
+        Limit limit = Limit.of(size);
+        return after == null
+            ? entryRepository.findSummariesByEvent(event, limit)
+            : entryRepository.findSummariesByEventAfter(event, after.createdAt(), after.id(), limit);
+    }
+    
+    public List<EntrySummary> findPaidPageByEvent(String event, EntryCursor after, int size) {
+        Limit limit = Limit.of(size);
+        Entry.PaymentStatus paid = Entry.PaymentStatus.PAID;
+        return after == null
+            ? entryRepository.findSummariesByEventAndPaymentStatus(event, paid, limit)
+            : entryRepository.findSummariesByEventAndPaymentStatusAfter(event, paid, after.createdAt(), after.id(), limit);
+    }
+    
+    public long countByEvent(String event) {
+        return entryRepository.countByEvent(event);
+    }
+    
     public Optional<Entry> findByStripeSessionId(String sessionId) {
         return entryRepository.findByStripeSessionId(sessionId);
     }
     
+    /**
+     * Mark a pending entry as paid.
+     * Returns empty if the entry was not PENDING (already paid, or a duplicate webhook).
+     */
     @Transactional
-    public Entry markAsPaid(Long entryId, String paymentIntentId) {
-        Entry entry = entryRepository.findById(entryId)
-            .orElseThrow(() -> new IllegalArgumentException("Entry not found: " + entryId));
-        
-        entry.setPaymentStatus(Entry.PaymentStatus.PAID);
-        entry.setStripePaymentIntentId(paymentIntentId);
-        entry.setPaidAt(LocalDateTime.now());
+    public Optional<Entry> markAsPaid(Long entryId, String paymentIntentId) {
+        if (entryRepository.markPaidIfPending(entryId, LocalDateTime.now(), paymentIntentId) == 0) {
+            log.info("Entry {} not pending - payment ignored", entryId);
+            return Optional.empty();
+        }
         
-        Entry updated = entryRepository.save(entry);
+        Entry updated = entryRepository.findById(entryId)
+            .orElseThrow(() -> new IllegalArgumentException("Entry not found: " + entryId));
         log.info("Entry {} marked as PAID", entryId);
         
-        return updated;
+        eventPublisher.publishEvent(new EntryPaidEvent(entryId, updated.getEvent()));
+        
+        return Optional.of(updated);
+    }
+    
+    /**
+     * Record that a new checkout session is about to open, restarting the reaper's clock.
+     * False if the entry is no longer PENDING, so no session should be opened for it.
+     */
+    public boolean startCheckout(Long entryId) {
+        return entryRepository.startCheckoutIfPending(entryId, LocalDateTime.now()) == 1;
     }
     
     @Transactional
@@ -81,11 +182,7 @@ public class EntryService {
     }
     
     public long countPaidEntries(String event) {
-        return entryRepository.countPaidEntriesByEvent(event);
-    }
-    
-    public boolean clubHasEntered(String event, String clubName) {
-        return entryRepository.existsByEventAndClubName(event, clubName);
+        return paidEntryCounter.get(event);
     }
     
     public List<Entry> findAll() {
@@ -93,11 +190,13 @@ public class EntryService {
     }
     
     public BigDecimal getEntryFee(String event) {
-        if (event.contains("KENT")) {
-            return KENT_NINES_FEE;
-        } else if (event.contains("ESSEX")) {
-            return ESSEX_NINES_FEE;
-        }
-        throw new IllegalArgumentException("Unknown event: " + event);
+        return eventCatalog.get(event).entryFee();
+    }
+    
+    /**
+     * Whether the event is in the catalog and taking entries
+     */
+    public boolean isOpenForEntries(String event) {
+        return eventCatalog.isOpen(event);
     }
 }
@@ -0,0 +1,195 @@
+package uk.co.nationalninesgolf.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.co.nationalninesgolf.api.model.Entry;
+import uk.co.nationalninesgolf.api.repository.CompetitionEventRepository;
+import uk.co.nationalninesgolf.api.repository.EntryRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Field capacity per event.
+ * The events row is the authority across instances: a PENDING entry holds a slot, taken with a
+ * conditional UPDATE of held_slots in the transaction that saves it; paying keeps it and
+ * cancellation gives it back in the transaction that cancels. When the field is full, entries are
+ * saved WAITLISTED and promoted to PENDING oldest first as slots free up - the waiting rows are
+ * locked SKIP LOCKED, so instances promoting at once never take the same entry.
+ * Memory only remembers events recently found full, to waitlist without a round trip.
+ */
+@Component
+@Slf4j
+public class EventCapacity {
+    
+    private static final int PROMOTE_BATCH = 50;
+    
+    private final EntryRepository entryRepository;
+    private final CompetitionEventRepository eventRepository;
+    private final EventCatalog eventCatalog;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Counter promotedCounter;
+    
+    // Event -> System.nanoTime() when a slot was last refused
+    private final Map<String, Long> fullSince = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> heldGauges = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> waitingGauges = new ConcurrentHashMap<>();
+    
+    @Value("${app.entries.full-cache-ttl:PT5S}")
+    private Duration fullCacheTtl;
+    
+    public EventCapacity(EntryRepository entryRepository,
+                         CompetitionEventRepository eventRepository,
+                         EventCatalog eventCatalog,
+                         ApplicationEventPublisher eventPublisher,
+                         TransactionTemplate transactionTemplate,
+                         MeterRegistry meterRegistry) {
+        this.entryRepository = entryRepository;
+        this.eventRepository = eventRepository;
+        this.eventCatalog = eventCatalog;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.promotedCounter = meterRegistry.counter("entries.waitlist.promoted");
+    }
+    
+    /**
+     * Take a slot for a new entry in the caller's transaction - false when the field is full or
+     * others are already waiting. The slot is given back if that transaction rolls back.
+     */
+    public boolean tryHold(String event) {
+        Long refusedAt = fullSince.get(event);
+        if (refusedAt != null && System.nanoTime() - refusedAt < fullCacheTtl.toNanos()) {
+            return false;
+        }
+        
+        if (eventRepository.takeSlotIfNoneWaiting(event) == 1) {
+            fullSince.remove(event);
+            return true;
+        }
+        fullSince.put(event, System.nanoTime());
+        return false;
+    }
+    
+    /**
+     * 1-based waitlist position, or 0 if the entry isn't waiting
+     */
+    public int position(Entry entry) {
+        if (entry.getPaymentStatus() != Entry.PaymentStatus.WAITLISTED) {
+            return 0;
+        }
+        return (int) entryRepository.countWaitlistedUpTo(entry.getId());
+    }
+    
+    /**
+     * Cancel PENDING entries last touched before the cutoff and give their slots back in one
+     * transaction, so each cancellation releases exactly one slot however many callers race for the row
+     */
+    @Transactional
+    public int cancelPending(List<Long> entryIds, LocalDateTime cutoff) {
+        int cancelled = 0;
+        for (String event : entryRepository.findEventsByIds(entryIds)) {
+            int count = entryRepository.cancelIfStillPending(entryIds, event, cutoff);
+            if (count > 0) {
+                eventRepository.releaseSlots(event, count);
+                fullSince.remove(event);
+                cancelled += count;
+            }
+        }
+        return cancelled;
+    }
+    
+    /**
+     * Withdraw one PENDING entry and hand its slot to the head of the waitlist in the same
+     * transaction, so a waiting pair doesn't sit out the next scheduled promotion. False if the
+     * entry was no longer PENDING.
+     */
+    @Transactional
+    public boolean withdrawPending(Entry entry) {
+        if (cancelPending(List.of(entry.getId()), LocalDateTime.now().plusSeconds(1)) == 0) {
+            return false;
+        }
+        promoteBatch(entry.getEvent(), 1);
+        return true;
+    }
+    
+    /**
+     * Move waiting entries into free slots, oldest first, for every event in the catalog.
+     * Also runs on a schedule, so places freed or added on any instance are filled.
+     */
+    @Scheduled(fixedDelayString = "${app.entries.waitlist-promote-interval:PT1M}")
+    public void promoteAll() {
+        for (EventInfo event : eventCatalog.all()) {
+            int promoted;
+            do {
+                promoted = promoteBatch(event.code(), PROMOTE_BATCH);
+            } while (promoted == PROMOTE_BATCH);
+        }
+        refreshGauges();
+    }
+    
+    /**
+     * Joins the caller's transaction when there is one
+     */
+    private int promoteBatch(String event, int limit) {
+        Integer promoted = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            int count = 0;
+            for (Entry entry : entryRepository.lockWaitlistHead(event, Limit.of(limit))) {
+                if (eventRepository.takeSlot(event) == 0) {
+                    break;
+                }
+                // Row is locked, so this can't miss
+                entryRepository.promoteIfWaitlisted(entry.getId(), now);
+                count++;
+                
+                promotedCounter.increment();
+                log.info("Entry {} promoted from the {} waitlist", entry.getId(), event);
+                eventPublisher.publishEvent(new EntryPromotedEvent(entry.getId(), event));
+            }
+            return count;
+        });
+        return promoted != null ? promoted : 0;
+    }
+    
+    private void refreshGauges() {
+        Map<String, Integer> waiting = new HashMap<>();
+        for (Object[] row : entryRepository.countWaitlistGroupedByEvent()) {
+            waiting.put((String) row[0], ((Long) row[1]).intValue());
+        }
+        for (Object[] row : eventRepository.findHeldSlots()) {
+            String event = (String) row[0];
+            gauge(heldGauges, "entries.slots.held", "Places held by pending and paid entries", event)
+                .set((Integer) row[1]);
+            gauge(waitingGauges, "entries.waitlist.size", "Entries waiting for a place", event)
+                .set(waiting.getOrDefault(event, 0));
+        }
+    }
+    
+    private AtomicInteger gauge(Map<String, AtomicInteger> gauges, String name, String description, String event) {
+        return gauges.computeIfAbsent(event, e -> {
+            AtomicInteger value = new AtomicInteger();
+            Gauge.builder(name, value, AtomicInteger::get)
+                .description(description)
+                .tag("event", e)
+                .register(meterRegistry);
+            return value;
+        });
+    }
+}
@@ -0,0 +1,107 @@
+package uk.co.nationalninesgolf.api.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.co.nationalninesgolf.api.model.CompetitionEvent;
+import uk.co.nationalninesgolf.api.repository.CompetitionEventRepository;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Event catalog - fees, names, slugs and capacity per event.
+ * Reads hit an immutable in-memory snapshot; the snapshot is rebuilt from the events
+ * table after admin changes, on demand, and on a schedule (to pick up other instances' changes).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EventCatalog {
+    
+    private final CompetitionEventRepository eventRepository;
+    
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), List.of());
+    
+    @PostConstruct
+    public void init() {
+        if (eventRepository.count() == 0) {
+            // First start - the two original events
+            eventRepository.saveAll(List.of(
+                CompetitionEvent.builder()
+                    .code("KENT_NINES_2026").displayName("Kent Nines 2026").slug("kent-nines")
+                    .entryFee(new BigDecimal("150.00")).build(),
+                CompetitionEvent.builder()
+                    .code("ESSEX_NINES_2026").displayName("Essex Nines 2026").slug("essex-nines")
+                    .entryFee(new BigDecimal("50.00")).build()));
+            log.info("Seeded event catalog");
+        }
+        reload();
+    }
+    
+    public Optional<EventInfo> find(String code) {
+        return Optional.ofNullable(snapshot.byCode().get(code));
+    }
+    
+    /**
+     * Catalog entry for an event, or IllegalArgumentException if there is none
+     */
+    public EventInfo get(String code) {
+        return find(code).orElseThrow(() -> new IllegalArgumentException("Unknown event: " + code));
+    }
+    
+    /**
+     * All events, ordered by code
+     */
+    public List<EventInfo> all() {
+        return snapshot.events();
+    }
+    
+    public boolean isOpen(String code) {
+        EventInfo event = snapshot.byCode().get(code);
+        return event != null && event.entriesOpen();
+    }
+    
+    /**
+     * Display name for emails and checkout - falls back to the code for events no longer in the catalog
+     */
+    public String displayName(String code) {
+        EventInfo event = snapshot.byCode().get(code);
+        return event != null ? event.displayName() : code;
+    }
+    
+    /**
+     * Add or update an event and publish the new snapshot
+     */
+    public EventInfo save(CompetitionEvent event) {
+        eventRepository.save(event);
+        reload();
+        return get(event.getCode());
+    }
+    
+    /**
+     * Rebuild the snapshot from the events table
+     */
+    @Scheduled(
+        initialDelayString = "${app.events.reload-interval:PT5M}",
+        fixedDelayString = "${app.events.reload-interval:PT5M}")
+    public void reload() {
+        List<EventInfo> events = eventRepository.findAll().stream()
+            .map(EventInfo::of)
+            .sorted(Comparator.comparing(EventInfo::code))
+            .toList();
+        snapshot = new Snapshot(
+            events.stream().collect(Collectors.toUnmodifiableMap(EventInfo::code, Function.identity())),
+            events);
+        log.debug("Event catalog loaded with {} events", events.size());
+    }
+    
+    private record Snapshot(Map<String, EventInfo> byCode, List<EventInfo> events) {}
+}
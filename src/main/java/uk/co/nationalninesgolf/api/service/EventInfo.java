@@ -0,0 +1,34 @@
+package uk.co.nationalninesgolf.api.service;
+
+import uk.co.nationalninesgolf.api.model.CompetitionEvent;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable catalog view of an event
+ */
+public record EventInfo(
+    String code,
+    String displayName,
+    String slug,
+    BigDecimal entryFee,
+    int capacity,
+    boolean entriesOpen
+) {
+    
+    public static EventInfo of(CompetitionEvent event) {
+        return new EventInfo(event.getCode(), event.getDisplayName(), event.getSlug(),
+            event.getEntryFee(), event.getCapacity(), event.isEntriesOpen());
+    }
+    
+    /**
+     * Key for the event's paid entry count in stats responses - "kent-nines" -> "kentNinesEntries"
+     */
+    public String statsKey() {
+        StringBuilder key = new StringBuilder();
+        for (String part : slug.split("-")) {
+            key.append(key.isEmpty() ? part : Character.toUpperCase(part.charAt(0)) + part.substring(1));
+        }
+        return key.append("Entries").toString();
+    }
+}
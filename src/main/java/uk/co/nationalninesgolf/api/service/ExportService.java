@@ -0,0 +1,239 @@
+package uk.co.nationalninesgolf.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import uk.co.nationalninesgolf.api.model.Entry;
+import uk.co.nationalninesgolf.api.model.Order;
+import uk.co.nationalninesgolf.api.model.OrderItem;
+import uk.co.nationalninesgolf.api.repository.EntryRepository;
+import uk.co.nationalninesgolf.api.repository.OrderRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Streams entries and orders as CSV or NDJSON straight from a database cursor.
+ * Rows are detached as soon as they are written, so memory stays flat regardless of table size.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportService {
+    
+    private static final int FLUSH_EVERY = 500;
+    
+    // Column order for CSV; every row map carries exactly these keys
+    private static final List<String> ENTRY_COLUMNS = List.of(
+        "id", "event", "clubName", "player1Name", "player1Email", "player1Handicap",
+        "player2Name", "player2Email", "player2Handicap", "contactPhone", "marketingOptIn",
+        "paymentStatus", "entryFee", "createdAt", "paidAt");
+    private static final List<String> ORDER_COLUMNS = List.of(
+        "orderNumber", "status", "customerName", "customerEmail", "customerPhone", "deliveryMethod",
+        "shippingAddress", "shippingCity", "shippingPostcode", "notes", "items",
+        "subtotal", "shippingCost", "total", "createdAt", "paidAt", "fulfilledAt");
+    
+    private final EntryRepository entryRepository;
+    private final OrderRepository orderRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+        
+        public final String contentType;
+        public final String extension;
+        
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+        
+        public static Format of(String name) {
+            return valueOf(name.toUpperCase());
+        }
+    }
+    
+    @Transactional(readOnly = true)
+    public void exportEntries(String event, Format format, OutputStream out) throws IOException {
+        RowWriter writer = new RowWriter(format, ENTRY_COLUMNS, out);
+        try (Stream<Entry> entries = event != null ? entryRepository.streamByEvent(event) : entryRepository.streamAll()) {
+            Iterator<Entry> it = entries.iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                writer.write(entryRow(entry));
+                entityManager.detach(entry);
+            }
+            writer.finish();
+        }
+    }
+    
+    /**
+     * Rows arrive ordered by order ID, so each order is written once its last item has been read.
+     * Orders without items come through the outer join as a single row with no item.
+     */
+    @Transactional(readOnly = true)
+    public void exportOrders(Order.OrderStatus status, Format format, OutputStream out) throws IOException {
+        RowWriter writer = new RowWriter(format, ORDER_COLUMNS, out);
+        try (Stream<Object[]> rows = status != null
+                ? orderRepository.streamOrdersWithItemsByStatus(status)
+                : orderRepository.streamOrdersWithItems()) {
+            Order current = null;
+            List<OrderItem> currentItems = new ArrayList<>();
+            
+            Iterator<Object[]> it = rows.iterator();
+            while (it.hasNext()) {
+                Object[] row = it.next();
+                Order order = (Order) row[0];
+                OrderItem item = (OrderItem) row[1];
+                if (current != null && !current.getId().equals(order.getId())) {
+                    writer.write(orderRow(current, currentItems, format));
+                    entityManager.detach(current);
+                    currentItems.clear();
+                }
+                current = order;
+                if (item != null) {
+                    currentItems.add(item);
+                    entityManager.detach(item);
+                }
+            }
+            if (current != null) {
+                writer.write(orderRow(current, currentItems, format));
+            }
+            writer.finish();
+        }
+    }
+    
+    private Map<String, Object> entryRow(Entry entry) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", entry.getId());
+        row.put("event", entry.getEvent());
+        row.put("clubName", entry.getClubName());
+        row.put("player1Name", entry.getPlayer1Name());
+        row.put("player1Email", entry.getPlayer1Email());
+        row.put("player1Handicap", entry.getPlayer1Handicap());
+        row.put("player2Name", entry.getPlayer2Name());
+        row.put("player2Email", entry.getPlayer2Email());
+        row.put("player2Handicap", entry.getPlayer2Handicap());
+        row.put("contactPhone", entry.getContactPhone());
+        row.put("marketingOptIn", entry.isMarketingOptIn());
+        row.put("paymentStatus", entry.getPaymentStatus());
+        row.put("entryFee", entry.getEntryFee());
+        row.put("createdAt", entry.getCreatedAt());
+        row.put("paidAt", entry.getPaidAt());
+        return row;
+    }
+    
+    private Map<String, Object> orderRow(Order order, List<OrderItem> items, Format format) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("orderNumber", order.getOrderNumber());
+        row.put("status", order.getStatus());
+        row.put("customerName", order.getCustomerName());
+        row.put("customerEmail", order.getCustomerEmail());
+        row.put("customerPhone", order.getCustomerPhone());
+        row.put("deliveryMethod", order.getDeliveryMethod());
+        row.put("shippingAddress", order.getShippingAddress());
+        row.put("shippingCity", order.getShippingCity());
+        row.put("shippingPostcode", order.getShippingPostcode());
+        row.put("notes", order.getNotes());
+        if (format == Format.CSV) {
+            row.put("items", items.stream()
+                .map(item -> item.getProductName() + " x" + item.getQuantity())
+                .collect(Collectors.joining("; ")));
+        } else {
+            row.put("items", items.stream()
+                .map(item -> Map.of(
+                    "productId", item.getProductId(),
+                    "productName", item.getProductName(),
+                    "quantity", item.getQuantity(),
+                    "unitPrice", item.getUnitPrice()))
+                .toList());
+        }
+        row.put("subtotal", order.getSubtotal());
+        row.put("shippingCost", order.getShippingCost());
+        row.put("total", order.getTotal());
+        row.put("createdAt", order.getCreatedAt());
+        row.put("paidAt", order.getPaidAt());
+        row.put("fulfilledAt", order.getFulfilledAt());
+        return row;
+    }
+    
+    /**
+     * Writes rows in the chosen format. The CSV header is written from the fixed column list
+     * before any row is read, so an empty export still has one.
+     */
+    private class RowWriter {
+        
+        private final Format format;
+        private final List<String> columns;
+        private final Writer writer;
+        private int rows;
+        
+        RowWriter(Format format, List<String> columns, OutputStream out) throws IOException {
+            this.format = format;
+            this.columns = columns;
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (format == Format.CSV) {
+                writeCsvLine(columns);
+                // Get the header to the client straight away
+                writer.flush();
+            }
+        }
+        
+        void write(Map<String, Object> row) throws IOException {
+            if (format == Format.NDJSON) {
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.write('\n');
+            } else {
+                writeCsvLine(columns.stream().map(row::get).toList());
+            }
+            if (++rows % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        
+        void finish() throws IOException {
+            writer.flush();
+            log.info("Exported {} rows as {}", rows, format);
+        }
+        
+        private void writeCsvLine(List<?> values) throws IOException {
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) writer.write(',');
+                writer.write(csv(values.get(i)));
+            }
+            writer.write("\r\n");
+        }
+    }
+    
+    /**
+     * Quotes where needed, and neutralises text that a spreadsheet would run as a formula
+     * (=, +, -, @, or a leading tab/CR) with a leading apostrophe. Numbers are left as they are.
+     */
+    private static String csv(Object value) {
+        if (value == null) return "";
+        String text = value.toString();
+        if (value instanceof CharSequence && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
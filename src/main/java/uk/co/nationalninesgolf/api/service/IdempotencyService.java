@@ -0,0 +1,268 @@
+package uk.co.nationalninesgolf.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uk.co.nationalninesgolf.api.model.IdempotencyRecord;
+import uk.co.nationalninesgolf.api.repository.IdempotencyRecordRepository;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key handling for create endpoints.
+ * Successful responses are stored in idempotency_keys and kept in memory for a shorter TTL;
+ * a retry with the same key gets the stored response back, and concurrent duplicates
+ * wait for the one request that is actually running. Memory holds at most max-cached-keys
+ * completed responses - past that Caffeine evicts the coldest keys, and retries of those are
+ * replayed from the database instead. Requests still running are never evicted.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+    
+    public static final String HEADER = "Idempotency-Key";
+    
+    private static final int MAX_KEY_LENGTH = 255;
+    
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Counter replayCounter;
+    
+    private final Cache<String, Slot> slots;
+    
+    @Value("${app.idempotency.ttl:PT24H}")
+    private Duration ttl;
+    
+    @Value("${app.idempotency.memory-ttl:PT10M}")
+    private Duration memoryTtl;
+    
+    @Value("${app.idempotency.wait-timeout:PT30S}")
+    private Duration waitTimeout;
+    
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.idempotency.max-cached-keys:10000}") long maxCachedKeys) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.replayCounter = meterRegistry.counter("idempotency.replayed");
+        this.slots = Caffeine.newBuilder()
+            // In-flight slots weigh nothing, so only completed keys count toward the cap
+            .maximumWeight(maxCachedKeys)
+            .weigher((String key, Slot slot) -> slot.result.isDone() ? 1 : 0)
+            .expireAfter(new SlotExpiry())
+            .build();
+        Gauge.builder("idempotency.keys.cached", slots, Cache::estimatedSize)
+            .description("Idempotency keys held in memory")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Run action once per (scope, key). Only 2xx responses are stored -
+     * a retry after a validation error or a 503 runs the request again.
+     */
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters"));
+        }
+        
+        String requestHash = hash(request);
+        String slotKey = scope + ":" + key;
+        
+        Slot mine = new Slot(requestHash);
+        Slot existing = slots.asMap().putIfAbsent(slotKey, mine);
+        if (existing != null) {
+            return await(existing, requestHash, () -> execute(scope, key, request, action));
+        }
+        
+        Replay replay = null;
+        try {
+            Optional<IdempotencyRecord> stored = repository
+                .findByScopeAndIdempotencyKeyAndExpiresAtAfter(scope, key, LocalDateTime.now());
+            if (stored.isPresent()) {
+                IdempotencyRecord record = stored.get();
+                if (!record.getRequestHash().equals(requestHash)) {
+                    return keyReused();
+                }
+                replay = new Replay(record.getRequestHash(), record.getStatusCode(), record.getResponseBody());
+                Duration remaining = Duration.between(LocalDateTime.now(), record.getExpiresAt());
+                mine.keepFor(remaining.compareTo(memoryTtl) < 0 ? remaining : memoryTtl);
+                return replay(replay, requestHash);
+            }
+            
+            ResponseEntity<?> response = action.get();
+            if (response.getStatusCode().is2xxSuccessful()) {
+                replay = store(scope, key, requestHash, response);
+                mine.keepFor(memoryTtl);
+            }
+            return response;
+        } finally {
+            if (replay == null) {
+                // Nothing to replay - let the next attempt run for real
+                slots.asMap().remove(slotKey, mine);
+            }
+            mine.result.complete(replay);
+            if (replay != null) {
+                // Re-weigh and start its expiry now it is complete - may evict a colder key
+                slots.asMap().replace(slotKey, mine, mine);
+            }
+        }
+    }
+    
+    /**
+     * Drop expired keys from memory and the database
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval:PT10M}")
+    public void purge() {
+        slots.cleanUp();
+        int deleted = repository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.debug("Purged {} expired idempotency keys", deleted);
+        }
+    }
+    
+    private ResponseEntity<?> await(Slot slot, String requestHash, Supplier<ResponseEntity<?>> retry) {
+        if (!slot.requestHash.equals(requestHash)) {
+            return keyReused();
+        }
+        
+        Replay replay;
+        try {
+            replay = slot.result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inProgress();
+        }
+        
+        // The first attempt failed without a storable response - run this one instead
+        return replay != null ? replay(replay, requestHash) : retry.get();
+    }
+    
+    private Replay store(String scope, String key, String requestHash, ResponseEntity<?> response) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(response.getBody());
+        } catch (JsonProcessingException e) {
+            log.warn("Could not store response for {} key {}", scope, key, e);
+            return null;
+        }
+        
+        Replay replay = new Replay(requestHash, response.getStatusCode().value(), body);
+        try {
+            repository.save(IdempotencyRecord.builder()
+                .scope(scope)
+                .idempotencyKey(key)
+                .requestHash(requestHash)
+                .statusCode(replay.status())
+                .responseBody(body)
+                .expiresAt(LocalDateTime.now().plus(ttl))
+                .build());
+        } catch (DataIntegrityViolationException e) {
+            // Another instance ran the same key concurrently - keep its record
+            log.warn("Idempotency key {} for {} was stored by another instance", key, scope);
+        }
+        return replay;
+    }
+    
+    private ResponseEntity<?> replay(Replay replay, String requestHash) {
+        if (!replay.requestHash().equals(requestHash)) {
+            return keyReused();
+        }
+        replayCounter.increment();
+        return ResponseEntity.status(replay.status())
+            .contentType(MediaType.APPLICATION_JSON)
+            .header("Idempotent-Replayed", "true")
+            .body(replay.body());
+    }
+    
+    private ResponseEntity<?> keyReused() {
+        return ResponseEntity.unprocessableEntity()
+            .body(Map.of("error", HEADER + " has already been used for a different request"));
+    }
+    
+    private ResponseEntity<?> inProgress() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+            .body(Map.of("error", "A request with this " + HEADER + " is still in progress"));
+    }
+    
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash request", e);
+        }
+    }
+    
+    private record Replay(String requestHash, int status, String body) {}
+    
+    /**
+     * One key's in-flight or completed execution
+     */
+    private static final class Slot {
+        
+        final String requestHash;
+        final CompletableFuture<Replay> result = new CompletableFuture<>();
+        volatile Duration keepFor;
+        
+        Slot(String requestHash) {
+            this.requestHash = requestHash;
+        }
+        
+        void keepFor(Duration duration) {
+            keepFor = duration;
+        }
+        
+        long nanosToKeep() {
+            return result.isDone() && keepFor != null ? keepFor.toNanos() : Long.MAX_VALUE;
+        }
+    }
+    
+    /**
+     * Running slots never expire; completed ones last keepFor from completion
+     */
+    private static final class SlotExpiry implements Expiry<String, Slot> {
+        
+        @Override
+        public long expireAfterCreate(String key, Slot slot, long currentTime) {
+            return slot.nanosToKeep();
+        }
+        
+        @Override
+        public long expireAfterUpdate(String key, Slot slot, long currentTime, long currentDuration) {
+            return slot.nanosToKeep();
+        }
+        
+        @Override
+        public long expireAfterRead(String key, Slot slot, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package uk.co.nationalninesgolf.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Server-Sent Event feeds for the public entry counts and the admin dashboard.
+ * Commits only mark a feed dirty; a scheduled push sends at most one update per interval,
+ * serialized once and handed to every subscriber. Writes happen on the live-send executor, never
+ * on the shared scheduler thread: each subscriber sends one event at a time, keeps only the latest
+ * unsent update, and is dropped if a write is stuck for longer than the send timeout.
+ * Idle emitters hold no threads.
+ */
+@Service
+@Slf4j
+public class LiveStatsService {
+    
+    private final PaidEntryCounter paidEntryCounter;
+    private final EventCatalog eventCatalog;
+    private final DashboardService dashboardService;
+    private final ObjectMapper objectMapper;
+    
+    private final Feed statsFeed = new Feed("stats");
+    private final Feed dashboardFeed = new Feed("dashboard");
+    
+    private final ExecutorService sender;
+    
+    @Value("${app.live.emitter-timeout:PT30M}")
+    private Duration emitterTimeout;
+    
+    @Value("${app.live.send-timeout:PT10S}")
+    private Duration sendTimeout;
+    
+    public LiveStatsService(PaidEntryCounter paidEntryCounter,
+                            EventCatalog eventCatalog,
+                            DashboardService dashboardService,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.live.sender-threads:4}") int senderThreads,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.paidEntryCounter = paidEntryCounter;
+        this.eventCatalog = eventCatalog;
+        this.dashboardService = dashboardService;
+        this.objectMapper = objectMapper;
+        this.sender = virtualThreads
+            ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("live-send-", 0).factory())
+            : Executors.newFixedThreadPool(senderThreads, Thread.ofPlatform().name("live-send-", 0).factory());
+        Gauge.builder("live.subscribers", statsFeed.emitters, Set::size)
+            .tag("feed", statsFeed.name)
+            .register(meterRegistry);
+        Gauge.builder("live.subscribers", dashboardFeed.emitters, Set::size)
+            .tag("feed", dashboardFeed.name)
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Public stats (entry counts for display on frontend) - served from the in-memory counter
+     */
+    public Map<String, Object> publicStats() {
+        Map<String, Object> stats = new HashMap<>();
+        for (EventInfo event : eventCatalog.all()) {
+            stats.put(event.statsKey(), paidEntryCounter.get(event.code()));
+        }
+        return stats;
+    }
+    
+    public SseEmitter subscribeStats() {
+        return subscribe(statsFeed, this::publicStats);
+    }
+    
+    public SseEmitter subscribeDashboard() {
+        return subscribe(dashboardFeed, () -> dashboardService.getSnapshot().toMap());
+    }
+    
+    @TransactionalEventListener
+    public void onEntryPaid(EntryPaidEvent paid) {
+        statsFeed.dirty.set(true);
+        dashboardFeed.dirty.set(true);
+    }
+    
+    @TransactionalEventListener
+    public void onOrderUpdated(OrderUpdatedEvent updated) {
+        dashboardFeed.dirty.set(true);
+    }
+    
+    /**
+     * Coalesce everything that changed since the last run into one push per feed
+     */
+    @Scheduled(fixedDelayString = "${app.live.push-interval:PT2S}")
+    public void pushChanges() {
+        if (statsFeed.takeDirty()) {
+            statsFeed.broadcast(publicStats());
+        }
+        if (dashboardFeed.takeDirty()) {
+            dashboardFeed.broadcast(dashboardService.refresh().toMap());
+        }
+    }
+    
+    /**
+     * Keep idle connections open through proxies and drop subscribers that have gone away
+     */
+    @Scheduled(fixedDelayString = "${app.live.heartbeat-interval:PT30S}")
+    public void heartbeat() {
+        statsFeed.heartbeat();
+        dashboardFeed.heartbeat();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+    
+    private SseEmitter subscribe(Feed feed, Supplier<Map<String, Object>> initial) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        feed.add(emitter).offer(serialize(initial.get()));
+        return emitter;
+    }
+    
+    private String serialize(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize live stats", e);
+        }
+    }
+    
+    private class Feed {
+        
+        private final String name;
+        private final Set<Subscriber> emitters = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        
+        Feed(String name) {
+            this.name = name;
+        }
+        
+        Subscriber add(SseEmitter emitter) {
+            Subscriber subscriber = new Subscriber(this, emitter);
+            emitters.add(subscriber);
+            emitter.onCompletion(() -> emitters.remove(subscriber));
+            emitter.onTimeout(() -> emitters.remove(subscriber));
+            emitter.onError(e -> emitters.remove(subscriber));
+            return subscriber;
+        }
+        
+        /**
+         * Clear the dirty flag; skip the work entirely when nobody is listening
+         */
+        boolean takeDirty() {
+            return dirty.getAndSet(false) && !emitters.isEmpty();
+        }
+        
+        void broadcast(Map<String, Object> payload) {
+            String json = serialize(payload);
+            emitters.forEach(subscriber -> subscriber.offer(json));
+            log.debug("Pushed {} update to {} subscribers", name, emitters.size());
+        }
+        
+        void heartbeat() {
+            emitters.forEach(Subscriber::keepAlive);
+        }
+    }
+    
+    /**
+     * One emitter's outgoing events - sent one at a time on the sender, latest update wins.
+     * Events are built per send: SseEventBuilder is stateful and can't be shared.
+     */
+    private class Subscriber {
+        
+        // Any String instance other than this one is a JSON payload
+        private static final String KEEPALIVE = new String("keepalive");
+        
+        private final Feed feed;
+        private final SseEmitter emitter;
+        private final AtomicReference<String> pending = new AtomicReference<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long sendStartedAt;
+        
+        Subscriber(Feed feed, SseEmitter emitter) {
+            this.feed = feed;
+            this.emitter = emitter;
+        }
+        
+        void offer(String json) {
+            if (!dropIfStuck()) {
+                pending.set(json);
+                drain();
+            }
+        }
+        
+        void keepAlive() {
+            // An unsent update keeps the connection alive just as well
+            if (!dropIfStuck() && pending.compareAndSet(null, KEEPALIVE)) {
+                drain();
+            }
+        }
+        
+        private void drain() {
+            if (!sending.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sender.execute(this::sendPending);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                feed.emitters.remove(this);
+            }
+        }
+        
+        private void sendPending() {
+            try {
+                String next;
+                while ((next = pending.getAndSet(null)) != null) {
+                    sendStartedAt = System.nanoTime();
+                    emitter.send(next == KEEPALIVE
+                        ? SseEmitter.event().comment("keepalive")
+                        : SseEmitter.event().name(feed.name).data(next));
+                    sendStartedAt = 0;
+                }
+            } catch (IOException | IllegalStateException e) {
+                feed.emitters.remove(this);
+                return;
+            } finally {
+                sending.set(false);
+            }
+            // Offered after the loop's last check
+            if (pending.get() != null) {
+                drain();
+            }
+        }
+        
+        /**
+         * A client that stopped reading blocks its write once the socket buffer fills - give up on it
+         */
+        private boolean dropIfStuck() {
+            long started = sendStartedAt;
+            if (started == 0 || System.nanoTime() - started < sendTimeout.toNanos()) {
+                return false;
+            }
+            if (feed.emitters.remove(this)) {
+                log.info("Dropping {} subscriber - a send has been blocked for over {}", feed.name, sendTimeout);
+                // Completing waits on the blocked send, so not on the caller's thread
+                sender.execute(emitter::complete);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package uk.co.nationalninesgolf.api.service;
+
+/**
+ * Source of unique, customer-facing order numbers
+ */
+public interface OrderNumberGenerator {
+    
+    String next();
+}
@@ -1,11 +1,16 @@
 package uk.co.nationalninesgolf.api.service;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import uk.co.nationalninesgolf.api.model.Order;
 import uk.co.nationalninesgolf.api.model.OrderItem;
+import uk.co.nationalninesgolf.api.model.OrderStatusView;
 import uk.co.nationalninesgolf.api.repository.OrderRepository;
 
 import java.math.BigDecimal;
@@ -19,6 +24,10 @@ import java.util.Optional;
 public class OrderService {
     
     private final OrderRepository orderRepository;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CustomerLookupService customerLookup;
+    private final EntityManager entityManager;
     
     // Shipping costs
     private static final BigDecimal SHIPPING_SMALL = new BigDecimal("5.00");
@@ -27,6 +36,9 @@ public class OrderService {
     
     @Transactional
     public Order createOrder(Order order) {
+        // Items arrive from JSON without the back reference
+        order.getItems().forEach(item -> item.setOrder(order));
+        
         // Calculate totals
         BigDecimal subtotal = order.getItems().stream()
             .map(OrderItem::getLineTotal)
@@ -43,8 +55,10 @@ public class OrderService {
         
         order.setTotal(order.getSubtotal().add(order.getShippingCost()));
         order.setStatus(Order.OrderStatus.PENDING);
+        order.setOrderNumber(orderNumberGenerator.next());
         
         Order saved = orderRepository.save(order);
+        customerLookup.link(saved);
         log.info("Created order {} for {} - total £{}", 
             saved.getOrderNumber(), saved.getCustomerEmail(), saved.getTotal());
         
@@ -66,8 +80,40 @@ public class OrderService {
         return orderRepository.findById(id);
     }
     
+    public Optional<Order> findWithItemsById(Long id) {
+        return orderRepository.findWithItemsById(id);
+    }
+    
+    /**
+     * Order number lookups go through Hibernate's natural-id API so they are answered from the
+     * second-level cache - a query by order number always goes to the database
+     */
+    @Transactional(readOnly = true)
     public Optional<Order> findByOrderNumber(String orderNumber) {
-        return orderRepository.findByOrderNumber(orderNumber);
+        return entityManager.unwrap(Session.class)
+            .bySimpleNaturalId(Order.class)
+            .loadOptional(orderNumber);
+    }
+    
+    public Optional<OrderStatusView> findStatusByOrderNumber(String orderNumber) {
+        return orderRepository.findStatusByOrderNumber(orderNumber);
+    }
+    
+    @Transactional(readOnly = true)
+    public Optional<Order> findWithItemsByOrderNumber(String orderNumber) {
+        Optional<Order> order = findByOrderNumber(orderNumber);
+        order.ifPresent(o -> Hibernate.initialize(o.getItems()));
+        return order;
+    }
+    
+    /**
+     * Checkout resumes read the order from the database - the cached copy can trail a payment
+     * that committed on another instance. That copy is dropped too, so order pages catch up.
+     */
+    public Optional<Order> findForCheckoutByOrderNumber(String orderNumber) {
+        Optional<Order> order = orderRepository.findWithItemsByOrderNumber(orderNumber);
+        order.ifPresent(o -> entityManager.getEntityManagerFactory().getCache().evict(Order.class, o.getId()));
+        return order;
     }
     
     public Optional<Order> findByStripeSessionId(String sessionId) {
@@ -75,31 +121,36 @@ public class OrderService {
     }
     
     public List<Order> findByStatus(Order.OrderStatus status) {
-        return orderRepository.findByStatus(status);
+        return orderRepository.findWithItemsByStatus(status);
     }
     
     public List<Order> findOrdersToFulfill() {
-        return orderRepository.findOrdersToFulfill();
+        return orderRepository.findOrdersToFulfillWithItems();
     }
     
+    /**
+     * Mark a pending order as paid, returning it with its items loaded.
+     * Returns empty if the order was not PENDING (already paid, or a duplicate webhook).
+     */
     @Transactional
-    public Order markAsPaid(Long orderId, String paymentIntentId) {
-        Order order = orderRepository.findById(orderId)
+    public Optional<Order> markAsPaid(Long orderId, String paymentIntentId) {
+        if (orderRepository.markPaidIfPending(orderId, LocalDateTime.now(), paymentIntentId) == 0) {
+            log.info("Order {} not pending - payment ignored", orderId);
+            return Optional.empty();
+        }
+        
+        Order updated = orderRepository.findWithItemsById(orderId)
             .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
+        log.info("Order {} marked as PAID", updated.getOrderNumber());
         
-        order.setStatus(Order.OrderStatus.PAID);
-        order.setStripePaymentIntentId(paymentIntentId);
-        order.setPaidAt(LocalDateTime.now());
+        eventPublisher.publishEvent(new OrderUpdatedEvent(orderId, Order.OrderStatus.PAID));
         
-        Order updated = orderRepository.save(order);
-        log.info("Order {} marked as PAID", order.getOrderNumber());
-        
-        return updated;
+        return Optional.of(updated);
     }
     
     @Transactional
     public Order updateStatus(Long orderId, Order.OrderStatus status) {
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithItemsById(orderId)
             .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
         
         order.setStatus(status);
@@ -111,9 +162,19 @@ public class OrderService {
         Order updated = orderRepository.save(order);
         log.info("Order {} status updated to {}", order.getOrderNumber(), status);
         
+        eventPublisher.publishEvent(new OrderUpdatedEvent(orderId, status));
+        
         return updated;
     }
     
+    /**
+     * Record that a new checkout session is about to open, restarting the reaper's clock.
+     * False if the order is no longer PENDING, so no session should be opened for it.
+     */
+    public boolean startCheckout(Long orderId) {
+        return orderRepository.startCheckoutIfPending(orderId, LocalDateTime.now()) == 1;
+    }
+    
     @Transactional
     public Order updateStripeSession(Long orderId, String sessionId) {
         Order order = orderRepository.findById(orderId)
@@ -124,7 +185,7 @@ public class OrderService {
     }
     
     public List<Order> findAll() {
-        return orderRepository.findAll();
+        return orderRepository.findAllWithItems();
     }
     
     public BigDecimal calculateTotalRevenue() {
@@ -0,0 +1,9 @@
+package uk.co.nationalninesgolf.api.service;
+
+import uk.co.nationalninesgolf.api.model.Order;
+
+/**
+ * Published when an order is paid or changes status - listeners run after the transaction commits
+ */
+public record OrderUpdatedEvent(Long orderId, Order.OrderStatus status) {
+}
@@ -0,0 +1,79 @@
+package uk.co.nationalninesgolf.api.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import uk.co.nationalninesgolf.api.repository.EntryRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory paid entry counts per event.
+ * Seeded from the database at startup, bumped when a payment commits and
+ * periodically reconciled against the database, so stats reads never hit Postgres.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaidEntryCounter {
+    
+    private final EntryRepository entryRepository;
+    
+    private final Map<String, AtomicLong> counts = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void seed() {
+        reconcile();
+    }
+    
+    /**
+     * Get the cached paid entry count for an event
+     */
+    public long get(String event) {
+        AtomicLong count = counts.get(event);
+        return count != null ? count.get() : 0L;
+    }
+    
+    @TransactionalEventListener
+    public void onEntryPaid(EntryPaidEvent paid) {
+        counts.computeIfAbsent(paid.event(), e -> new AtomicLong()).incrementAndGet();
+    }
+    
+    /**
+     * Replace cached counts with the database totals.
+     * Each count is swapped only if it still holds the value read before the query - one bumped
+     * by a payment meanwhile is left alone rather than overwritten, and the next run corrects it.
+     */
+    @Scheduled(
+        initialDelayString = "${app.stats.reconcile-interval:PT5M}",
+        fixedDelayString = "${app.stats.reconcile-interval:PT5M}")
+    public void reconcile() {
+        Map<String, Long> before = new HashMap<>();
+        counts.forEach((event, count) -> before.put(event, count.get()));
+        
+        List<Object[]> rows = entryRepository.countPaidEntriesGroupedByEvent();
+        
+        Map<String, Long> fresh = new HashMap<>();
+        for (Object[] row : rows) {
+            fresh.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        
+        before.keySet().forEach(event -> fresh.putIfAbsent(event, 0L));
+        fresh.forEach((event, count) -> {
+            long previous = before.getOrDefault(event, 0L);
+            AtomicLong current = counts.computeIfAbsent(event, e -> new AtomicLong());
+            if (!current.compareAndSet(previous, count)) {
+                log.debug("Skipped reconciling paid entries for {} - a payment landed mid-run", event);
+            } else if (previous != count) {
+                log.debug("Reconciled paid entries for {}: {} -> {}", event, previous, count);
+            }
+        });
+    }
+}
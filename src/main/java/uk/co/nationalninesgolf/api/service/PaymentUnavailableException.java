@@ -0,0 +1,13 @@
+package uk.co.nationalninesgolf.api.service;
+
+/**
+ * Thrown when a Stripe call is refused without being attempted - the bulkhead is full or the circuit is open
+ */
+public class PaymentUnavailableException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public PaymentUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,122 @@
+package uk.co.nationalninesgolf.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.co.nationalninesgolf.api.repository.EntryRepository;
+import uk.co.nationalninesgolf.api.repository.OrderRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Cancels entries and orders left PENDING by abandoned checkouts, aged from their latest checkout session.
+ * Stale ids are read in keyset chunks and cancelled with one conditional UPDATE per chunk,
+ * so a row a webhook marks paid mid-run keeps its PAID status. Cancelled entries give their
+ * field slots back in the same transaction, then the waitlist is promoted into them.
+ */
+@Component
+@Slf4j
+public class PendingReaper {
+    
+    private final EntryRepository entryRepository;
+    private final OrderRepository orderRepository;
+    private final CheckoutSessionCache sessionCache;
+    private final ClubClaims clubClaims;
+    private final ClubNameIndex clubNameIndex;
+    private final EventCapacity eventCapacity;
+    
+    private final Timer runTimer;
+    private final Counter cancelledEntries;
+    private final Counter cancelledOrders;
+    
+    // Counted from the latest checkout session, so it must exceed the Stripe Checkout session
+    // lifetime (24h) for no reaped row to still be payable
+    @Value("${app.reaper.pending-ttl:PT48H}")
+    private Duration pendingTtl;
+    
+    @Value("${app.reaper.chunk-size:500}")
+    private int chunkSize;
+    
+    public PendingReaper(EntryRepository entryRepository,
+                         OrderRepository orderRepository,
+                         CheckoutSessionCache sessionCache,
+                         ClubClaims clubClaims,
+                         ClubNameIndex clubNameIndex,
+                         EventCapacity eventCapacity,
+                         MeterRegistry meterRegistry) {
+        this.entryRepository = entryRepository;
+        this.orderRepository = orderRepository;
+        this.sessionCache = sessionCache;
+        this.clubClaims = clubClaims;
+        this.clubNameIndex = clubNameIndex;
+        this.eventCapacity = eventCapacity;
+        this.runTimer = Timer.builder("reaper.run")
+            .description("Time to cancel abandoned pending entries and orders")
+            .register(meterRegistry);
+        this.cancelledEntries = meterRegistry.counter("reaper.cancelled", "type", "entry");
+        this.cancelledOrders = meterRegistry.counter("reaper.cancelled", "type", "order");
+    }
+    
+    @Scheduled(
+        initialDelayString = "${app.reaper.interval:PT15M}",
+        fixedDelayString = "${app.reaper.interval:PT15M}")
+    public void reap() {
+        runTimer.record(() -> {
+            LocalDateTime cutoff = LocalDateTime.now().minus(pendingTtl);
+            
+            int entries = reap(cutoff, entryRepository::findStalePendingIds, eventCapacity::cancelPending,
+                CheckoutSessionCache::entryKey);
+            int orders = reap(cutoff, orderRepository::findStalePendingIds, orderRepository::cancelIfStillPending,
+                CheckoutSessionCache::orderKey);
+            
+            if (entries > 0) {
+                // Cancelled entries free their clubs, and their slots go to the waitlist
+                clubClaims.reload();
+                clubNameIndex.reload();
+                eventCapacity.promoteAll();
+            }
+            
+            cancelledEntries.increment(entries);
+            cancelledOrders.increment(orders);
+            if (entries > 0 || orders > 0) {
+                log.info("Cancelled {} abandoned entries and {} abandoned orders older than {}", entries, orders, pendingTtl);
+            }
+        });
+    }
+    
+    private int reap(LocalDateTime cutoff,
+                     StaleIdFinder finder,
+                     BiFunction<List<Long>, LocalDateTime, Integer> cancel,
+                     Function<Long, String> cacheKey) {
+        int cancelled = 0;
+        long afterId = 0L;
+        
+        List<Long> ids;
+        do {
+            ids = finder.find(cutoff, afterId, Limit.of(chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            
+            cancelled += cancel.apply(ids, cutoff);
+            ids.forEach(id -> sessionCache.evict(cacheKey.apply(id)));
+            afterId = ids.get(ids.size() - 1);
+        } while (ids.size() == chunkSize);
+        
+        return cancelled;
+    }
+    
+    @FunctionalInterface
+    private interface StaleIdFinder {
+        List<Long> find(LocalDateTime cutoff, Long afterId, Limit limit);
+    }
+}
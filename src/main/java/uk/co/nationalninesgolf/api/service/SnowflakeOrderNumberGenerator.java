@@ -0,0 +1,221 @@
+package uk.co.nationalninesgolf.api.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.co.nationalninesgolf.api.model.OrderNumberNode;
+import uk.co.nationalninesgolf.api.repository.OrderNumberNodeRepository;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style order numbers: 41 bits of milliseconds since 2025, 10 bits of node ID
+ * and a 12 bit per-millisecond sequence, printed as fixed-width Crockford base32
+ * (e.g. NN-01HZ8K3M7QX2A). Numbers sort by creation time.
+ * Each instance leases its node ID from order_number_nodes - a free one, or the one set in
+ * app.order-number.node-id - so no two running instances share a node. IDs are only issued
+ * below the node's reserved_until, which is persisted ahead of the clock; a restart or a new
+ * owner of the node resumes above it, so no number is ever issued twice.
+ */
+@Component
+@Slf4j
+public class SnowflakeOrderNumberGenerator implements OrderNumberGenerator {
+    
+    private static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int LENGTH = 13; // 13 x 5 bits covers the 63 bit ID
+    private static final String PREFIX = "NN-";
+    
+    private final OrderNumberNodeRepository nodeRepository;
+    private final long configuredNode;
+    private final String owner;
+    
+    // Last issued (timestamp << SEQUENCE_BITS | sequence)
+    private final AtomicLong state = new AtomicLong();
+    
+    private volatile long node;
+    private volatile long reservedUntil;
+    
+    @Value("${app.order-number.lease-ttl:PT2M}")
+    private Duration leaseTtl;
+    
+    @Value("${app.order-number.reserve-ahead:PT1M}")
+    private Duration reserveAhead;
+    
+    @Autowired
+    public SnowflakeOrderNumberGenerator(OrderNumberNodeRepository nodeRepository,
+                                         @Value("${app.order-number.node-id:-1}") long nodeId) {
+        if (nodeId > MAX_NODE) {
+            throw new IllegalArgumentException("Order number node ID must be 0-" + MAX_NODE + ": " + nodeId);
+        }
+        this.nodeRepository = nodeRepository;
+        this.configuredNode = nodeId;
+        this.owner = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+    
+    /**
+     * Fixed node with no lease or reservation - for benchmarks and tests
+     */
+    SnowflakeOrderNumberGenerator(long nodeId) {
+        this.nodeRepository = null;
+        this.configuredNode = nodeId;
+        this.owner = null;
+        this.node = nodeId;
+        this.reservedUntil = Long.MAX_VALUE;
+    }
+    
+    @PostConstruct
+    public void leaseNode() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expires = now.plus(leaseTtl);
+        int leased = configuredNode >= 0 ? claimConfigured((int) configuredNode, now, expires) : claimFree(now, expires);
+        
+        // Start above anything the node's previous owner could have issued
+        long reserved = nodeRepository.findById(leased).map(OrderNumberNode::getReservedUntil).orElse(0L);
+        state.set(Math.max(0, (reserved << SEQUENCE_BITS) - 1));
+        reservedUntil = reserved;
+        node = leased;
+        reserve(Math.max(reserved, millis()) + reserveAhead.toMillis());
+        
+        log.info("Order number generator leased node ID {} as {}", node, owner);
+    }
+    
+    /**
+     * Keep the lease, and the reservation a step ahead of the clock so issuing rarely waits on it
+     */
+    @Scheduled(
+        initialDelayString = "${app.order-number.renew-interval:PT20S}",
+        fixedDelayString = "${app.order-number.renew-interval:PT20S}")
+    public void renewLease() {
+        LocalDateTime now = LocalDateTime.now();
+        if (nodeRepository.claim((int) node, owner, now.plus(leaseTtl), now) == 0) {
+            // Numbers already issued stay below the reservation the new owner starts from
+            log.error("Order number node ID {} was leased by another instance - new order numbers will fail", node);
+            return;
+        }
+        reserveThrough(millis() + reserveAhead.toMillis());
+    }
+    
+    @PreDestroy
+    public void releaseNode() {
+        nodeRepository.release((int) node, owner, LocalDateTime.now());
+    }
+    
+    @Override
+    public String next() {
+        return format(nextId());
+    }
+    
+    /**
+     * Lock-free: when the sequence for a millisecond runs out, or the clock steps back,
+     * the sequence carries into the timestamp so IDs keep increasing. An ID at or past the
+     * reservation waits for the reservation to be raised before it is returned.
+     */
+    long nextId() {
+        while (true) {
+            long last = state.get();
+            long now = millis();
+            long next = now > (last >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : last + 1;
+            if (state.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                if (timestamp >= reservedUntil) {
+                    reserveThrough(timestamp + reserveAhead.toMillis());
+                }
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+    
+    static String format(long id) {
+        char[] chars = new char[PREFIX.length() + LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+    
+    private synchronized void reserveThrough(long until) {
+        if (until > reservedUntil) {
+            reserve(until);
+        }
+    }
+    
+    private synchronized void reserve(long until) {
+        if (nodeRepository.reserve((int) node, owner, until) == 0) {
+            throw new IllegalStateException("Order number node ID " + node + " is no longer leased by this instance");
+        }
+        reservedUntil = until;
+    }
+    
+    private int claimConfigured(int nodeId, LocalDateTime now, LocalDateTime expires) {
+        if (nodeRepository.claim(nodeId, owner, expires, now) == 1 || insert(nodeId, expires)) {
+            return nodeId;
+        }
+        throw new IllegalStateException("Order number node ID " + nodeId + " is leased by another running instance");
+    }
+    
+    private int claimFree(LocalDateTime now, LocalDateTime expires) {
+        // Nodes left by stopped instances first, then ones never used
+        for (Integer nodeId : nodeRepository.findExpiredNodeIds(now)) {
+            if (nodeRepository.claim(nodeId, owner, expires, now) == 1) {
+                return nodeId;
+            }
+        }
+        Set<Integer> known = new HashSet<>(nodeRepository.findAllNodeIds());
+        for (int nodeId = 0; nodeId <= MAX_NODE; nodeId++) {
+            if (!known.contains(nodeId) && insert(nodeId, expires)) {
+                return nodeId;
+            }
+        }
+        throw new IllegalStateException("All " + (MAX_NODE + 1) + " order number node IDs are leased");
+    }
+    
+    private boolean insert(int nodeId, LocalDateTime expires) {
+        if (nodeRepository.existsById(nodeId)) {
+            return false;
+        }
+        try {
+            nodeRepository.saveAndFlush(OrderNumberNode.builder()
+                .nodeId(nodeId)
+                .owner(owner)
+                .leaseExpiresAt(expires)
+                .build());
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // Another instance took it first
+            return false;
+        }
+    }
+    
+    private static long millis() {
+        return System.currentTimeMillis() - EPOCH;
+    }
+    
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+}
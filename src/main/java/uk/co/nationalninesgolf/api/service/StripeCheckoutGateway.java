@@ -0,0 +1,174 @@
+package uk.co.nationalninesgolf.api.service;
+
+import com.stripe.exception.CardException;
+import com.stripe.exception.IdempotencyException;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.checkout.SessionCreateParams;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Guards Stripe Checkout session creation: a bulkhead caps concurrent calls, every call has a
+ * connect/read deadline, and a circuit breaker fails fast once Stripe is erroring or slow.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StripeCheckoutGateway {
+    
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${stripe.checkout.max-concurrent-calls:10}")
+    private int maxConcurrentCalls;
+    
+    @Value("${stripe.checkout.max-wait:PT0.5S}")
+    private Duration maxWait;
+    
+    @Value("${stripe.checkout.connect-timeout:PT2S}")
+    private Duration connectTimeout;
+    
+    @Value("${stripe.checkout.read-timeout:PT8S}")
+    private Duration readTimeout;
+    
+    @Value("${stripe.checkout.circuit.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+    
+    @Value("${stripe.checkout.circuit.slow-call-threshold:PT5S}")
+    private Duration slowCallThreshold;
+    
+    @Value("${stripe.checkout.circuit.sliding-window:20}")
+    private int slidingWindow;
+    
+    @Value("${stripe.checkout.circuit.minimum-calls:10}")
+    private int minimumCalls;
+    
+    @Value("${stripe.checkout.circuit.open-duration:PT30S}")
+    private Duration openDuration;
+    
+    @Value("${stripe.checkout.circuit.half-open-calls:3}")
+    private int halfOpenCalls;
+    
+    private Bulkhead bulkhead;
+    private CircuitBreaker circuitBreaker;
+    private RequestOptions requestOptions;
+    private Timer callTimer;
+    
+    @PostConstruct
+    public void init() {
+        BulkheadRegistry bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+            .maxConcurrentCalls(maxConcurrentCalls)
+            .maxWaitDuration(maxWait)
+            .build());
+        bulkhead = bulkheads.bulkhead("stripe-checkout");
+        
+        CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+            .slidingWindowSize(slidingWindow)
+            .minimumNumberOfCalls(minimumCalls)
+            .failureRateThreshold(failureRateThreshold)
+            .slowCallDurationThreshold(slowCallThreshold)
+            .slowCallRateThreshold(failureRateThreshold)
+            .waitDurationInOpenState(openDuration)
+            .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+            .automaticTransitionFromOpenToHalfOpenEnabled(true)
+            // Bad parameters are our bug, not an outage - don't let them trip the breaker
+            .ignoreExceptions(InvalidRequestException.class, CardException.class, IdempotencyException.class)
+            .build());
+        circuitBreaker = circuitBreakers.circuitBreaker("stripe-checkout");
+        circuitBreaker.getEventPublisher().onStateTransition(e ->
+            log.warn("Stripe checkout circuit {}", e.getStateTransition()));
+        
+        requestOptions = RequestOptions.builder()
+            .setConnectTimeout((int) connectTimeout.toMillis())
+            .setReadTimeout((int) readTimeout.toMillis())
+            .build();
+        
+        callTimer = Timer.builder("stripe.checkout.latency")
+            .description("Stripe Checkout session creation time")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+        
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+    }
+    
+    /**
+     * Whether a checkout call would currently be let through - false while the circuit is open
+     */
+    public boolean isAvailable() {
+        CircuitBreaker.State state = circuitBreaker.getState();
+        return state != CircuitBreaker.State.OPEN && state != CircuitBreaker.State.FORCED_OPEN;
+    }
+    
+    /**
+     * Create a Checkout session, failing with PaymentUnavailableException when the bulkhead
+     * stays full for max-wait or the circuit is open
+     */
+    public Session createSession(SessionCreateParams params) throws StripeException {
+        return call(() -> Session.create(params, requestOptions));
+    }
+    
+    /**
+     * Fetch an existing Checkout session, under the same bulkhead and circuit breaker
+     */
+    public Session retrieveSession(String sessionId) throws StripeException {
+        return call(() -> Session.retrieve(sessionId, Map.of(), requestOptions));
+    }
+    
+    private Session call(StripeCall call) throws StripeException {
+        try {
+            // Waits up to max-wait for a permit
+            bulkhead.acquirePermission();
+        } catch (BulkheadFullException e) {
+            meterRegistry.counter("stripe.checkout.rejected", "reason", "bulkhead").increment();
+            throw new PaymentUnavailableException("Too many payments in progress", e);
+        }
+        try {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                meterRegistry.counter("stripe.checkout.rejected", "reason", "circuit-open").increment();
+                throw new PaymentUnavailableException("Payment provider unavailable",
+                    CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+            }
+            
+            long start = System.nanoTime();
+            try {
+                Session session = call.execute();
+                circuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return session;
+            } catch (StripeException | RuntimeException e) {
+                circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+                throw e;
+            } finally {
+                callTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            bulkhead.onComplete();
+        }
+    }
+    
+    @FunctionalInterface
+    private interface StripeCall {
+        Session execute() throws StripeException;
+    }
+}
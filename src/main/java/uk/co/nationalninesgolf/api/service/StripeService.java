@@ -1,24 +1,36 @@
 package uk.co.nationalninesgolf.api.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stripe.Stripe;
+import com.stripe.exception.InvalidRequestException;
 import com.stripe.exception.SignatureVerificationException;
 import com.stripe.exception.StripeException;
 import com.stripe.model.Event;
 import com.stripe.model.checkout.Session;
 import com.stripe.net.Webhook;
 import com.stripe.param.checkout.SessionCreateParams;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 import uk.co.nationalninesgolf.api.model.Entry;
 import uk.co.nationalninesgolf.api.model.Order;
 import uk.co.nationalninesgolf.api.model.OrderItem;
+import uk.co.nationalninesgolf.api.model.WebhookInboxEvent;
+import uk.co.nationalninesgolf.api.repository.WebhookInboxRepository;
 
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -28,6 +40,9 @@ public class StripeService {
     @Value("${stripe.api.key:}")
     private String stripeApiKey;
     
+    @Value("${stripe.api.base:}")
+    private String stripeApiBase;
+    
     @Value("${stripe.webhook.secret:}")
     private String webhookSecret;
     
@@ -40,6 +55,13 @@ public class StripeService {
     private final EntryService entryService;
     private final OrderService orderService;
     private final EmailService emailService;
+    private final WebhookInboxRepository webhookInboxRepository;
+    private final WebhookDeduplicator webhookDeduplicator;
+    private final StripeCheckoutGateway checkoutGateway;
+    private final CheckoutSessionCache sessionCache;
+    private final EventCatalog eventCatalog;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
     
     @PostConstruct
     public void init() {
@@ -49,19 +71,45 @@ public class StripeService {
         } else {
             log.warn("Stripe API key not configured");
         }
+        if (stripeApiBase != null && !stripeApiBase.isEmpty()) {
+            // Point the SDK at a stand-in server (load and failure testing)
+            Stripe.overrideApiBase(stripeApiBase);
+            log.warn("Stripe API base overridden to {}", stripeApiBase);
+        }
+    }
+    
+    /**
+     * Whether checkout sessions can currently be created - false while Stripe is failing fast
+     */
+    public boolean isCheckoutAvailable() {
+        return checkoutGateway.isAvailable();
     }
     
     /**
-     * Create a Stripe Checkout session for a competition entry
+     * Return the open Stripe Checkout session of an entry read from the database, or create one.
+     * Throws IllegalStateException if the entry stopped being PENDING first.
+     */
+    public String resumeEntryCheckoutSession(Entry entry) throws StripeException {
+        Optional<String> open = openSessionUrl(CheckoutSessionCache.entryKey(entry.getId()), entry.getStripeSessionId());
+        if (open.isPresent()) {
+            return open.get();
+        }
+        return createEntryCheckoutSession(entry);
+    }
+    
+    /**
+     * Create a Stripe Checkout session for a competition entry.
+     * Throws IllegalStateException if the entry stopped being PENDING first.
      */
     public String createEntryCheckoutSession(Entry entry) throws StripeException {
-        String eventName = entry.getEvent().contains("KENT") ? "Kent Nines 2026" : "Essex Nines 2026";
+        String cacheKey = CheckoutSessionCache.entryKey(entry.getId());
+        EventInfo event = eventCatalog.get(entry.getEvent());
         long amountInPence = entry.getEntryFee().multiply(new BigDecimal("100")).longValue();
         
         SessionCreateParams params = SessionCreateParams.builder()
             .setMode(SessionCreateParams.Mode.PAYMENT)
-            .setSuccessUrl(frontendUrl + "/events/" + (entry.getEvent().contains("KENT") ? "kent-nines" : "essex-nines") + "?entered=true&session_id={CHECKOUT_SESSION_ID}")
-            .setCancelUrl(frontendUrl + "/events/" + (entry.getEvent().contains("KENT") ? "kent-nines" : "essex-nines") + "#enter")
+            .setSuccessUrl(frontendUrl + "/events/" + event.slug() + "?entered=true&session_id={CHECKOUT_SESSION_ID}")
+            .setCancelUrl(frontendUrl + "/events/" + event.slug() + "#enter")
             .setCustomerEmail(entry.getPlayer1Email())
             .addLineItem(
                 SessionCreateParams.LineItem.builder()
@@ -72,7 +120,7 @@ public class StripeService {
                             .setUnitAmount(amountInPence)
                             .setProductData(
                                 SessionCreateParams.LineItem.PriceData.ProductData.builder()
-                                    .setName(eventName + " Entry")
+                                    .setName(event.displayName() + " Entry")
                                     .setDescription("Pair entry: " + entry.getPlayer1Name() + " & " + entry.getPlayer2Name() + " (" + entry.getClubName() + ")")
                                     .build()
                             )
@@ -85,7 +133,11 @@ public class StripeService {
             .putMetadata("event", entry.getEvent())
             .build();
         
-        Session session = Session.create(params);
+        if (!entryService.startCheckout(entry.getId())) {
+            throw new IllegalStateException("Entry " + entry.getId() + " is no longer awaiting payment");
+        }
+        Session session = checkoutGateway.createSession(params);
+        sessionCache.put(cacheKey, session);
         
         // Save session ID to entry
         entryService.updateStripeSession(entry.getId(), session.getId());
@@ -96,9 +148,23 @@ public class StripeService {
     }
     
     /**
-     * Create a Stripe Checkout session for a shop order
+     * Return the open Stripe Checkout session of an order read from the database, or create one.
+     * Throws IllegalStateException if the order stopped being PENDING first.
+     */
+    public String resumeOrderCheckoutSession(Order order) throws StripeException {
+        Optional<String> open = openSessionUrl(CheckoutSessionCache.orderKey(order.getId()), order.getStripeSessionId());
+        if (open.isPresent()) {
+            return open.get();
+        }
+        return createOrderCheckoutSession(order);
+    }
+    
+    /**
+     * Create a Stripe Checkout session for a shop order.
+     * Throws IllegalStateException if the order stopped being PENDING first.
      */
     public String createOrderCheckoutSession(Order order) throws StripeException {
+        String cacheKey = CheckoutSessionCache.orderKey(order.getId());
         SessionCreateParams.Builder paramsBuilder = SessionCreateParams.builder()
             .setMode(SessionCreateParams.Mode.PAYMENT)
             .setSuccessUrl(frontendUrl + "/cart?success=true&order=" + order.getOrderNumber())
@@ -153,7 +219,11 @@ public class StripeService {
         paramsBuilder.putMetadata("order_id", order.getId().toString());
         paramsBuilder.putMetadata("order_number", order.getOrderNumber());
         
-        Session session = Session.create(paramsBuilder.build());
+        if (!orderService.startCheckout(order.getId())) {
+            throw new IllegalStateException("Order " + order.getOrderNumber() + " is no longer awaiting payment");
+        }
+        Session session = checkoutGateway.createSession(paramsBuilder.build());
+        sessionCache.put(cacheKey, session);
         
         // Save session ID to order
         orderService.updateStripeSession(order.getId(), session.getId());
@@ -164,45 +234,178 @@ public class StripeService {
     }
     
     /**
-     * Handle Stripe webhook events
+     * URL of a session that is still open - from the cache, or fetched once from Stripe
+     * when this instance hasn't seen it (e.g. after a restart). The session ID must come from the
+     * database, never from a request.
+     */
+    private Optional<String> openSessionUrl(String cacheKey, String sessionId) throws StripeException {
+        Optional<String> cached = sessionCache.url(cacheKey);
+        if (cached.isPresent() || sessionId == null) {
+            return cached;
+        }
+        
+        Session session;
+        try {
+            session = checkoutGateway.retrieveSession(sessionId);
+        } catch (InvalidRequestException e) {
+            log.warn("Could not retrieve Stripe checkout session {}: {}", sessionId, e.getMessage());
+            return Optional.empty();
+        }
+        if (!"open".equals(session.getStatus())) {
+            return Optional.empty();
+        }
+        sessionCache.put(cacheKey, session);
+        return sessionCache.url(cacheKey);
+    }
+    
+    /**
+     * A waitlisted entry got a place - open its checkout and email the pair the payment link.
+     * Runs after the promotion commits, off the promoting (scheduler or reaper) thread.
+     */
+    @Async
+    @TransactionalEventListener
+    public void onEntryPromoted(EntryPromotedEvent promoted) {
+        entryService.findById(promoted.entryId()).ifPresent(entry -> {
+            String checkoutUrl = null;
+            try {
+                checkoutUrl = resumeEntryCheckoutSession(entry);
+            } catch (StripeException | PaymentUnavailableException | IllegalStateException e) {
+                log.error("Could not create checkout for promoted entry {}", entry.getId(), e);
+            }
+            try {
+                emailService.sendWaitlistPromotion(entry, checkoutUrl);
+            } catch (RuntimeException e) {
+                log.error("Could not queue waitlist promotion email for entry {}", entry.getId(), e);
+            }
+        });
+    }
+    
+    /**
+     * Verify a Stripe webhook and store it in the inbox - processing happens in WebhookInboxWorker.
+     * Redelivered events are dropped by event ID.
      */
     public void handleWebhook(String payload, String sigHeader) throws SignatureVerificationException {
         Event event = Webhook.constructEvent(payload, sigHeader, webhookSecret);
         
-        log.info("Received Stripe webhook: {}", event.getType());
+        if (webhookDeduplicator.isDuplicate(event.getId())
+                || webhookInboxRepository.existsByStripeEventId(event.getId())) {
+            webhookDeduplicator.remember(event.getId());
+            log.debug("Ignoring duplicate Stripe webhook {}", event.getId());
+            return;
+        }
+        
+        log.info("Received Stripe webhook: {} ({})", event.getType(), event.getId());
+        
+        try {
+            webhookInboxRepository.saveAndFlush(WebhookInboxEvent.builder()
+                .stripeEventId(event.getId())
+                .eventType(event.getType())
+                .objectId(objectId(event))
+                .payload(payload)
+                .build());
+        } catch (DataIntegrityViolationException e) {
+            // Unique stripe_event_id - another delivery of this event got here first
+            log.debug("Ignoring duplicate Stripe webhook {}", event.getId());
+        }
         
+        webhookDeduplicator.remember(event.getId());
+    }
+    
+    /**
+     * Process a verified webhook event taken from the inbox.
+     * One transaction, so a payment is only marked PAID together with its confirmation emails -
+     * any failure rolls both back and the inbox retries the event.
+     */
+    @Transactional
+    public void processEvent(Event event) {
         switch (event.getType()) {
             case "checkout.session.completed" -> handleCheckoutCompleted(event);
+            case "checkout.session.expired" -> handleCheckoutExpired(event);
             case "payment_intent.succeeded" -> handlePaymentSucceeded(event);
             case "payment_intent.payment_failed" -> handlePaymentFailed(event);
             default -> log.debug("Unhandled webhook event type: {}", event.getType());
         }
     }
     
+    private String objectId(Event event) {
+        try {
+            return objectMapper.readTree(event.getDataObjectDeserializer().getRawJson())
+                .path("id")
+                .asText(event.getId());
+        } catch (JsonProcessingException e) {
+            return event.getId();
+        }
+    }
+    
     private void handleCheckoutCompleted(Event event) {
         Session session = (Session) event.getDataObjectDeserializer().getObject().orElse(null);
         if (session == null) return;
         
         Map<String, String> metadata = session.getMetadata();
         String type = metadata.get("type");
+        evictSession(metadata);
         
         if ("entry".equals(type)) {
             Long entryId = Long.parseLong(metadata.get("entry_id"));
-            Entry entry = entryService.markAsPaid(entryId, session.getPaymentIntent());
-            log.info("Entry {} payment completed", entryId);
-            
-            // Send confirmation emails
-            emailService.sendEntryConfirmation(entry);
-            emailService.notifyAdminNewEntry(entry);
-            
+            Optional<Entry> paid = entryService.markAsPaid(entryId, session.getPaymentIntent());
+            paid.ifPresent(entry -> {
+                log.info("Entry {} payment completed", entryId);
+                
+                // Send confirmation emails
+                emailService.sendEntryConfirmation(entry);
+                emailService.notifyAdminNewEntry(entry);
+            });
+            if (paid.isEmpty()) {
+                entryService.findById(entryId).ifPresent(entry -> checkUnmatchedPayment(
+                    "entry " + entryId, entry.getPaymentStatus().name(), entry.getStripePaymentIntentId(), session));
+            }
+        
         } else if ("order".equals(type)) {
             Long orderId = Long.parseLong(metadata.get("order_id"));
-            Order order = orderService.markAsPaid(orderId, session.getPaymentIntent());
-            log.info("Order {} payment completed", metadata.get("order_number"));
-            
-            // Send confirmation emails
-            emailService.sendOrderConfirmation(order);
-            emailService.notifyAdminNewOrder(order);
+            Optional<Order> paid = orderService.markAsPaid(orderId, session.getPaymentIntent());
+            paid.ifPresent(order -> {
+                log.info("Order {} payment completed", metadata.get("order_number"));
+                
+                // Send confirmation emails
+                emailService.sendOrderConfirmation(order);
+                emailService.notifyAdminNewOrder(order);
+            });
+            if (paid.isEmpty()) {
+                orderService.findById(orderId).ifPresent(order -> checkUnmatchedPayment(
+                    "order " + order.getOrderNumber(), order.getStatus().name(), order.getStripePaymentIntentId(), session));
+            }
+        }
+    }
+    
+    /**
+     * A completed checkout that didn't move its row to PAID. A redelivery of the payment already
+     * recorded is fine - anything else means the customer was charged for a row that was cancelled
+     * or already paid, and needs a refund or a manual fix.
+     */
+    private void checkUnmatchedPayment(String target, String status, String recordedPaymentIntentId, Session session) {
+        if ("PAID".equals(status) && Objects.equals(recordedPaymentIntentId, session.getPaymentIntent())) {
+            return;
+        }
+        
+        meterRegistry.counter("payments.unmatched", "status", status).increment();
+        log.error("Checkout {} completed for {} in status {} - payment {} needs a refund or manual fix",
+            session.getId(), target, status, session.getPaymentIntent());
+        emailService.notifyAdminUnmatchedPayment(target, status, session.getId(), session.getPaymentIntent());
+    }
+    
+    private void handleCheckoutExpired(Event event) {
+        Session session = (Session) event.getDataObjectDeserializer().getObject().orElse(null);
+        if (session == null) return;
+        
+        evictSession(session.getMetadata());
+        log.info("Checkout session {} expired", session.getId());
+    }
+    
+    private void evictSession(Map<String, String> metadata) {
+        if ("entry".equals(metadata.get("type"))) {
+            sessionCache.evict(CheckoutSessionCache.entryKey(Long.parseLong(metadata.get("entry_id"))));
+        } else if ("order".equals(metadata.get("type"))) {
+            sessionCache.evict(CheckoutSessionCache.orderKey(Long.parseLong(metadata.get("order_id"))));
         }
     }
     
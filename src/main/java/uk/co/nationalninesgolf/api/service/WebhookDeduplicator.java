@@ -0,0 +1,35 @@
+package uk.co.nationalninesgolf.api.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU of recently accepted Stripe event IDs.
+ * Sits in front of the unique constraint on webhook_inbox.stripe_event_id,
+ * so most redeliveries are dropped without touching the database.
+ */
+@Component
+public class WebhookDeduplicator {
+    
+    private final Map<String, Boolean> recent;
+    
+    public WebhookDeduplicator(@Value("${app.webhooks.dedup-cache-size:10000}") int capacity) {
+        this.recent = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+    
+    public synchronized boolean isDuplicate(String eventId) {
+        return recent.get(eventId) != null;
+    }
+    
+    public synchronized void remember(String eventId) {
+        recent.put(eventId, Boolean.TRUE);
+    }
+}
@@ -0,0 +1,191 @@
+package uk.co.nationalninesgolf.api.service;
+
+import com.stripe.model.Event;
+import com.stripe.net.ApiResource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import uk.co.nationalninesgolf.api.model.WebhookInboxEvent;
+import uk.co.nationalninesgolf.api.repository.WebhookInboxRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Processes stored Stripe webhooks in the background.
+ * Each batch is split into lanes by object ID, so events for the same
+ * checkout session are always handled one at a time and in arrival order.
+ * Polls from its own thread, so a slow batch never holds up the shared @Scheduled jobs.
+ */
+@Component
+@Slf4j
+public class WebhookInboxWorker {
+    
+    private final WebhookInboxRepository inboxRepository;
+    private final StripeService stripeService;
+    
+    private final ExecutorService[] lanes;
+    private final ScheduledExecutorService poller;
+    private final Timer processingLag;
+    private final AtomicLong oldestPendingAgeSeconds = new AtomicLong();
+    private final AtomicLong pendingCount = new AtomicLong();
+    
+    @Value("${app.webhooks.batch-size:50}")
+    private int batchSize;
+    
+    @Value("${app.webhooks.max-attempts:10}")
+    private int maxAttempts;
+    
+    @Value("${app.webhooks.backoff-base:PT10S}")
+    private Duration backoffBase;
+    
+    @Value("${app.webhooks.backoff-max:PT30M}")
+    private Duration backoffMax;
+    
+    @Value("${app.webhooks.lease:PT5M}")
+    private Duration lease;
+    
+    @Value("${app.webhooks.poll-interval:PT1S}")
+    private Duration pollInterval;
+    
+    public WebhookInboxWorker(WebhookInboxRepository inboxRepository,
+                              StripeService stripeService,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.webhooks.workers:4}") int workers,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.inboxRepository = inboxRepository;
+        this.stripeService = stripeService;
+        this.lanes = new ExecutorService[workers];
+        for (int i = 0; i < workers; i++) {
+            ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("webhook-" + i + "-", 0).factory()
+                : Thread.ofPlatform().name("webhook-" + i).factory();
+            lanes[i] = Executors.newSingleThreadExecutor(threadFactory);
+        }
+        this.poller = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("webhook-poller").factory());
+        this.processingLag = Timer.builder("webhook.inbox.processing.lag")
+            .description("Time from webhook receipt to successful processing")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+        Gauge.builder("webhook.inbox.lag", oldestPendingAgeSeconds, AtomicLong::get)
+            .description("Age in seconds of the oldest unprocessed webhook")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        Gauge.builder("webhook.inbox.depth", pendingCount, AtomicLong::get)
+            .description("Webhooks waiting in the inbox")
+            .register(meterRegistry);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        poller.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    private void poll() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            // Keep polling - a failed run would otherwise cancel the schedule
+            log.error("Webhook inbox poll failed", e);
+        }
+    }
+    
+    /**
+     * Claim a batch of due events, process each lane in order and wait for the batch before polling again
+     */
+    public void drain() {
+        LocalDateTime now = LocalDateTime.now();
+        List<WebhookInboxEvent> due = inboxRepository.findDue(now, PageRequest.of(0, batchSize));
+        
+        Map<Integer, List<WebhookInboxEvent>> byLane = new LinkedHashMap<>();
+        for (WebhookInboxEvent inboxEvent : due) {
+            int lane = Math.floorMod(inboxEvent.getObjectId().hashCode(), lanes.length);
+            byLane.computeIfAbsent(lane, l -> new ArrayList<>()).add(inboxEvent);
+        }
+        
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+        byLane.forEach((lane, events) -> inFlight.add(CompletableFuture.runAsync(() -> {
+            for (WebhookInboxEvent inboxEvent : events) {
+                if (inboxRepository.claim(inboxEvent.getId(), now, LocalDateTime.now().plus(lease)) == 1) {
+                    process(inboxEvent);
+                }
+            }
+        }, lanes[lane])));
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).join();
+        
+        pendingCount.set(inboxRepository.countByStatus(WebhookInboxEvent.Status.PENDING));
+        oldestPendingAgeSeconds.set(inboxRepository.findOldestUnprocessedReceivedAt()
+            .map(receivedAt -> Duration.between(receivedAt, LocalDateTime.now()).toSeconds())
+            .orElse(0L));
+    }
+    
+    private void process(WebhookInboxEvent inboxEvent) {
+        try {
+            Event event = ApiResource.GSON.fromJson(inboxEvent.getPayload(), Event.class);
+            stripeService.processEvent(event);
+            
+            inboxEvent.setStatus(WebhookInboxEvent.Status.PROCESSED);
+            inboxEvent.setProcessedAt(LocalDateTime.now());
+            inboxEvent.setLastError(null);
+            processingLag.record(Duration.between(inboxEvent.getReceivedAt(), inboxEvent.getProcessedAt()));
+        
+        } catch (Exception e) {
+            int attempts = inboxEvent.getAttempts() + 1;
+            inboxEvent.setAttempts(attempts);
+            inboxEvent.setLastError(abbreviate(e.getMessage()));
+            
+            if (attempts >= maxAttempts) {
+                inboxEvent.setStatus(WebhookInboxEvent.Status.FAILED);
+                log.error("Giving up on webhook {} ({}) after {} attempts",
+                    inboxEvent.getStripeEventId(), inboxEvent.getEventType(), attempts, e);
+            } else {
+                inboxEvent.setStatus(WebhookInboxEvent.Status.PENDING);
+                inboxEvent.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+                log.warn("Failed to process webhook {} ({}) - attempt {}: {}",
+                    inboxEvent.getStripeEventId(), inboxEvent.getEventType(), attempts, e.getMessage());
+            }
+        }
+        
+        inboxRepository.save(inboxEvent);
+    }
+    
+    private Duration backoff(int attempts) {
+        Duration delay = backoffBase.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(backoffMax) > 0 ? backoffMax : delay;
+    }
+    
+    private static String abbreviate(String message) {
+        if (message == null) return null;
+        return message.length() > 255 ? message.substring(0, 255) : message;
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        poller.shutdown();
+        poller.awaitTermination(30, TimeUnit.SECONDS);
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            lane.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+-- Schema as built by Hibernate's ddl-auto before migrations took over.
+-- Every statement is IF NOT EXISTS so this also runs cleanly against a database ddl-auto
+-- already created (flyway baseline-version is 0, so V1 is applied there too).
+
+CREATE SEQUENCE IF NOT EXISTS entries_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS orders_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS order_items_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS events (
+    code VARCHAR(64) NOT NULL,
+    display_name VARCHAR(255) NOT NULL,
+    slug VARCHAR(255) NOT NULL,
+    entry_fee NUMERIC(38,2) NOT NULL,
+    capacity INTEGER NOT NULL,
+    entries_open BOOLEAN NOT NULL,
+    updated_at TIMESTAMP(6),
+    CONSTRAINT events_pkey PRIMARY KEY (code),
+    CONSTRAINT events_slug_key UNIQUE (slug),
+    CONSTRAINT events_capacity_check CHECK (capacity >= 0)
+);
+
+CREATE TABLE IF NOT EXISTS entries (
+    id BIGINT NOT NULL,
+    event VARCHAR(255) NOT NULL,
+    club_name VARCHAR(255) NOT NULL,
+    club_key VARCHAR(255),
+    player1name VARCHAR(255),
+    player1email VARCHAR(255),
+    player1handicap NUMERIC(38,2) NOT NULL,
+    player2name VARCHAR(255),
+    player2email VARCHAR(255),
+    player2handicap NUMERIC(38,2) NOT NULL,
+    contact_phone VARCHAR(255),
+    marketing_opt_in BOOLEAN NOT NULL,
+    entry_fee NUMERIC(38,2) NOT NULL,
+    payment_status VARCHAR(255) NOT NULL,
+    stripe_session_id VARCHAR(255),
+    stripe_payment_intent_id VARCHAR(255),
+    created_at TIMESTAMP(6) NOT NULL,
+    promoted_at TIMESTAMP(6),
+    paid_at TIMESTAMP(6),
+    CONSTRAINT entries_pkey PRIMARY KEY (id),
+    CONSTRAINT entries_payment_status_check
+        CHECK (payment_status IN ('WAITLISTED', 'PENDING', 'PAID', 'FAILED', 'REFUNDED', 'CANCELLED'))
+);
+
+-- Added after the entries table first shipped
+ALTER TABLE entries ADD COLUMN IF NOT EXISTS club_key VARCHAR(255);
+ALTER TABLE entries ADD COLUMN IF NOT EXISTS promoted_at TIMESTAMP(6);
+
+-- One place per club per event - EntryService matches on this name
+CREATE UNIQUE INDEX IF NOT EXISTS uk_entries_event_club_key ON entries (event, club_key);
+
+CREATE TABLE IF NOT EXISTS orders (
+    id BIGINT NOT NULL,
+    order_number VARCHAR(255) NOT NULL,
+    customer_name VARCHAR(255),
+    customer_email VARCHAR(255),
+    customer_phone VARCHAR(255),
+    delivery_method VARCHAR(255) NOT NULL,
+    shipping_address VARCHAR(255),
+    shipping_city VARCHAR(255),
+    shipping_postcode VARCHAR(255),
+    notes VARCHAR(255),
+    subtotal NUMERIC(38,2) NOT NULL,
+    shipping_cost NUMERIC(38,2) NOT NULL,
+    total NUMERIC(38,2) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    stripe_session_id VARCHAR(255),
+    stripe_payment_intent_id VARCHAR(255),
+    created_at TIMESTAMP(6) NOT NULL,
+    paid_at TIMESTAMP(6),
+    fulfilled_at TIMESTAMP(6),
+    CONSTRAINT orders_pkey PRIMARY KEY (id),
+    CONSTRAINT orders_order_number_key UNIQUE (order_number),
+    CONSTRAINT orders_delivery_method_check CHECK (delivery_method IN ('COLLECTION', 'SHIPPING')),
+    CONSTRAINT orders_status_check
+        CHECK (status IN ('PENDING', 'PAID', 'PROCESSING', 'SHIPPED', 'DELIVERED', 'COLLECTED', 'CANCELLED', 'REFUNDED'))
+);
+
+CREATE TABLE IF NOT EXISTS order_items (
+    id BIGINT NOT NULL,
+    order_id BIGINT NOT NULL,
+    product_id VARCHAR(255),
+    product_name VARCHAR(255),
+    quantity INTEGER NOT NULL,
+    unit_price NUMERIC(38,2) NOT NULL,
+    CONSTRAINT order_items_pkey PRIMARY KEY (id),
+    CONSTRAINT order_items_order_id_fkey FOREIGN KEY (order_id) REFERENCES orders (id),
+    CONSTRAINT order_items_quantity_check CHECK (quantity >= 1)
+);
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    recipient VARCHAR(255) NOT NULL,
+    reply_to VARCHAR(255),
+    subject VARCHAR(255) NOT NULL,
+    body TEXT NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    attempts INTEGER NOT NULL,
+    next_attempt_at TIMESTAMP(6) NOT NULL,
+    last_error VARCHAR(255),
+    created_at TIMESTAMP(6) NOT NULL,
+    sent_at TIMESTAMP(6),
+    CONSTRAINT email_outbox_pkey PRIMARY KEY (id),
+    CONSTRAINT email_outbox_status_check CHECK (status IN ('PENDING', 'SENDING', 'SENT', 'FAILED'))
+);
+
+CREATE TABLE IF NOT EXISTS webhook_inbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    stripe_event_id VARCHAR(255) NOT NULL,
+    event_type VARCHAR(255) NOT NULL,
+    object_id VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    attempts INTEGER NOT NULL,
+    next_attempt_at TIMESTAMP(6) NOT NULL,
+    last_error VARCHAR(255),
+    received_at TIMESTAMP(6) NOT NULL,
+    processed_at TIMESTAMP(6),
+    CONSTRAINT webhook_inbox_pkey PRIMARY KEY (id),
+    CONSTRAINT webhook_inbox_stripe_event_id_key UNIQUE (stripe_event_id),
+    CONSTRAINT webhook_inbox_status_check CHECK (status IN ('PENDING', 'PROCESSING', 'PROCESSED', 'FAILED'))
+);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    scope VARCHAR(255) NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(255) NOT NULL,
+    status_code INTEGER NOT NULL,
+    response_body TEXT NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT idempotency_keys_pkey PRIMARY KEY (id),
+    CONSTRAINT idempotency_keys_scope_idempotency_key_key UNIQUE (scope, idempotency_key)
+);
+
+CREATE TABLE IF NOT EXISTS email_links (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    email VARCHAR(255) NOT NULL,
+    target_type VARCHAR(255) NOT NULL,
+    target_id BIGINT NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT email_links_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_email_links_email_type_target UNIQUE (email, target_type, target_id),
+    CONSTRAINT email_links_target_type_check CHECK (target_type IN ('ENTRY', 'ORDER'))
+);
+
+CREATE INDEX IF NOT EXISTS idx_email_links_target ON email_links (target_type, target_id);
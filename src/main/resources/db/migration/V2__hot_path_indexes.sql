@@ -0,0 +1,29 @@
+-- Indexes for the repository queries that run per request, per webhook or per worker poll.
+-- Before this, ddl-auto had only created primary keys and unique constraints.
+
+-- Public entry lists: WHERE event = ? [AND payment_status = ?] ORDER BY created_at, id (keyset)
+CREATE INDEX IF NOT EXISTS idx_entries_event_status_created ON entries (event, payment_status, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_entries_event_created ON entries (event, created_at, id);
+
+-- Waitlist seeding and the pending reaper: WHERE payment_status = ? ... created_at
+CREATE INDEX IF NOT EXISTS idx_entries_status_created ON entries (payment_status, created_at);
+
+-- Webhook and checkout lookups
+CREATE INDEX IF NOT EXISTS idx_entries_stripe_session ON entries (stripe_session_id);
+CREATE INDEX IF NOT EXISTS idx_entries_stripe_payment_intent ON entries (stripe_payment_intent_id);
+CREATE INDEX IF NOT EXISTS idx_orders_stripe_session ON orders (stripe_session_id);
+CREATE INDEX IF NOT EXISTS idx_orders_stripe_payment_intent ON orders (stripe_payment_intent_id);
+
+-- Orders to fulfil, pending reaper, counts by status, recent orders
+CREATE INDEX IF NOT EXISTS idx_orders_status_created ON orders (status, created_at);
+CREATE INDEX IF NOT EXISTS idx_orders_created ON orders (created_at);
+
+-- Order items are always loaded by their order
+CREATE INDEX IF NOT EXISTS idx_order_items_order ON order_items (order_id);
+
+-- Worker polls: WHERE status IN (...) AND next_attempt_at <= ?
+CREATE INDEX IF NOT EXISTS idx_email_outbox_status_due ON email_outbox (status, next_attempt_at);
+CREATE INDEX IF NOT EXISTS idx_webhook_inbox_status_due ON webhook_inbox (status, next_attempt_at);
+
+-- Idempotency purge: WHERE expires_at <= ?
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires ON idempotency_keys (expires_at);
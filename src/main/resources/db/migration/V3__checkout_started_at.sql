@@ -0,0 +1,5 @@
+-- When the latest Stripe checkout session was opened for the row. The reaper ages PENDING rows
+-- from here, so a checkout resumed late in the payment window isn't cancelled under a live session.
+
+ALTER TABLE entries ADD COLUMN IF NOT EXISTS checkout_started_at TIMESTAMP(6);
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS checkout_started_at TIMESTAMP(6);
@@ -0,0 +1,8 @@
+-- Field slots held by PENDING and PAID entries, per event. Taken and given back with conditional
+-- UPDATEs in the same transaction as the entry change, so the count holds across instances.
+
+ALTER TABLE events ADD COLUMN IF NOT EXISTS held_slots INTEGER DEFAULT 0 NOT NULL;
+
+UPDATE events SET held_slots = (
+    SELECT COUNT(*) FROM entries e
+    WHERE e.event = events.code AND e.payment_status IN ('PENDING', 'PAID'));
@@ -0,0 +1,11 @@
+-- Node IDs for order numbers, leased by running instances. reserved_until is the highest
+-- timestamp a node may have issued, so a new owner of the node starts above it.
+
+CREATE TABLE IF NOT EXISTS order_number_nodes (
+    node_id INTEGER NOT NULL,
+    owner VARCHAR(255) NOT NULL,
+    lease_expires_at TIMESTAMP(6) NOT NULL,
+    reserved_until BIGINT NOT NULL,
+    CONSTRAINT order_number_nodes_pkey PRIMARY KEY (node_id),
+    CONSTRAINT order_number_nodes_node_id_check CHECK (node_id BETWEEN 0 AND 1023)
+);
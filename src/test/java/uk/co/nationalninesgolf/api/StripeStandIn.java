@@ -0,0 +1,157 @@
+package uk.co.nationalninesgolf.api;
+
+import com.stripe.Stripe;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local Stripe API for Checkout sessions, with adjustable latency and session expiry. Point
+ * stripe.api.base at url(); close() puts back the Stripe SDK globals the application set.
+ */
+public final class StripeStandIn implements AutoCloseable {
+    
+    private static final String SESSIONS = "/v1/checkout/sessions";
+    
+    private final HttpServer server;
+    private final String savedApiKey = Stripe.apiKey;
+    private final String savedApiBase = Stripe.getApiBase();
+    private final Map<String, StoredSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger creates = new AtomicInteger();
+    private final AtomicInteger retrieves = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private volatile Duration latency = Duration.ZERO;
+    private volatile Duration expiresIn = Duration.ofHours(1);
+    
+    public StripeStandIn() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1000);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext(SESSIONS, this::handle);
+        server.start();
+    }
+    
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+    
+    /**
+     * Delay before every response
+     */
+    public void latency(Duration latency) {
+        this.latency = latency;
+    }
+    
+    /**
+     * Lifetime given to sessions created from now on
+     */
+    public void expiresIn(Duration expiresIn) {
+        this.expiresIn = expiresIn;
+    }
+    
+    /**
+     * Stripe expiring a session - later retrieves report it as expired
+     */
+    public void expire(String sessionId) {
+        sessions.computeIfPresent(sessionId, (id, session) -> new StoredSession("expired", session.expiresAt()));
+    }
+    
+    /**
+     * Requests received, counted on arrival - including ones the client gave up waiting for
+     */
+    public int requests() {
+        return requests.get();
+    }
+    
+    public int creates() {
+        return creates.get();
+    }
+    
+    public int retrieves() {
+        return retrieves.get();
+    }
+    
+    /**
+     * Most requests the stand-in has had in progress at once
+     */
+    public int peak() {
+        return peak.get();
+    }
+    
+    public void reset() {
+        requests.set(0);
+        creates.set(0);
+        retrieves.set(0);
+        peak.set(0);
+        latency = Duration.ZERO;
+        expiresIn = Duration.ofHours(1);
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+        Stripe.apiKey = savedApiKey;
+        Stripe.overrideApiBase(savedApiBase);
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            exchange.getRequestBody().readAllBytes();
+            Thread.sleep(latency);
+            
+            String path = exchange.getRequestURI().getPath();
+            if ("POST".equals(exchange.getRequestMethod()) && path.equals(SESSIONS)) {
+                String id = "cs_standin_" + creates.incrementAndGet() + "_" + System.nanoTime();
+                StoredSession session = new StoredSession("open", System.currentTimeMillis() / 1000 + expiresIn.toSeconds());
+                sessions.put(id, session);
+                respond(exchange, 200, json(id, session));
+                return;
+            }
+            
+            retrieves.incrementAndGet();
+            String id = path.substring(path.lastIndexOf('/') + 1);
+            StoredSession session = sessions.get(id);
+            if (session == null) {
+                respond(exchange, 404, "{\"error\": {\"type\": \"invalid_request_error\", "
+                    + "\"code\": \"resource_missing\", \"message\": \"No such checkout.session: " + id + "\"}}");
+            } else {
+                respond(exchange, 200, json(id, session));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+    
+    private static String json(String id, StoredSession session) {
+        return "{\"id\": \"" + id + "\", \"object\": \"checkout.session\", \"status\": \"" + session.status() + "\", "
+            + "\"expires_at\": " + session.expiresAt() + ", "
+            + "\"url\": \"https://checkout.example/" + id + "\"}";
+    }
+    
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+    
+    private record StoredSession(String status, long expiresAt) {
+    }
+}
@@ -0,0 +1,135 @@
+package uk.co.nationalninesgolf.api;
+
+import uk.co.nationalninesgolf.api.model.CompetitionEvent;
+import uk.co.nationalninesgolf.api.model.Entry;
+import uk.co.nationalninesgolf.api.model.Order;
+import uk.co.nationalninesgolf.api.model.OrderItem;
+import uk.co.nationalninesgolf.api.service.EventCatalog;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Entries, orders, events and webhook signatures for tests, and a start gate for running tasks
+ * at the same moment
+ */
+public final class TestFixtures {
+    
+    private TestFixtures() {
+    }
+    
+    /**
+     * A catalog event with a code unique to this run, so a reused database starts it empty
+     */
+    public static String newEvent(EventCatalog eventCatalog, String prefix, int capacity) {
+        String code = prefix + "_" + System.nanoTime();
+        eventCatalog.save(CompetitionEvent.builder()
+            .code(code)
+            .displayName(code)
+            .slug(code.toLowerCase().replace('_', '-'))
+            .entryFee(new BigDecimal("10.00"))
+            .capacity(capacity)
+            .build());
+        return code;
+    }
+    
+    public static Entry entry(String event, String club) {
+        return Entry.builder()
+            .event(event)
+            .clubName(club)
+            .player1Name("Player One")
+            .player1Email("one@example.com")
+            .player1Handicap(new BigDecimal("5.0"))
+            .player2Name("Player Two")
+            .player2Email("two@example.com")
+            .player2Handicap(new BigDecimal("7.0"))
+            .contactPhone("01234 567890")
+            .build();
+    }
+    
+    /**
+     * A collection order with items "Item 0" to "Item n-1" at £2.50 each
+     */
+    public static Order order(String customerName, int items) {
+        Order order = Order.builder()
+            .customerName(customerName)
+            .customerEmail("customer@example.com")
+            .customerPhone("01234 567890")
+            .deliveryMethod(Order.DeliveryMethod.COLLECTION)
+            .build();
+        for (int i = 0; i < items; i++) {
+            order.addItem(OrderItem.builder()
+                .productId("item-" + i)
+                .productName("Item " + i)
+                .quantity(1)
+                .unitPrice(new BigDecimal("2.50"))
+                .build());
+        }
+        return order;
+    }
+    
+    /**
+     * Stripe-Signature header for the test profile's webhook secret
+     */
+    public static String stripeSignature(String payload) throws Exception {
+        long timestamp = System.currentTimeMillis() / 1000;
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec("whsec_test".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] digest = mac.doFinal((timestamp + "." + payload).getBytes(StandardCharsets.UTF_8));
+        return "t=" + timestamp + ",v1=" + HexFormat.of().formatHex(digest);
+    }
+    
+    /**
+     * Release every task at once on a pool of the given size and wait for all of them;
+     * results come back in task order and the first failure is rethrown
+     */
+    public static <T> List<T> runTogether(int threads, List<? extends Callable<T>> tasks) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Run copies of one task together
+     */
+    public static void runTogether(int threads, int copies, ThrowingRunnable task) throws Exception {
+        Callable<Void> call = () -> {
+            task.run();
+            return null;
+        };
+        runTogether(threads, Collections.nCopies(copies, call));
+    }
+    
+    @FunctionalInterface
+    public interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,190 @@
+package uk.co.nationalninesgolf.api;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Order checkout under load with platform and then virtual request threads: a burst of concurrent
+ * POST /api/orders against a Stripe stand-in that takes STRIPE_LATENCY per session, with Tomcat
+ * capped at TOMCAT_THREADS. Emails only go to the outbox, so there's no SMTP on the request path.
+ * Takes a couple of minutes - run with: mvn test -Dtest=VirtualThreadLoadTest -DloadTest=true
+ */
+@EnabledIfSystemProperty(named = "loadTest", matches = "true")
+class VirtualThreadLoadTest {
+    
+    private static final int WARM_UP = 400;
+    private static final int REQUESTS = 400;
+    private static final int TOMCAT_THREADS = 20;
+    private static final Duration STRIPE_LATENCY = Duration.ofMillis(500);
+    
+    private static final String ORDER = """
+        {"customerName": "Load Test", "customerEmail": "load@example.com", "customerPhone": "01234 567890",
+         "deliveryMethod": "COLLECTION", "subtotal": 0, "shippingCost": 0, "total": 0,
+         "items": [{"productId": "ball", "productName": "Ball", "quantity": 2, "unitPrice": 3}]}
+        """;
+    
+    private static HttpServer stripe;
+    private static final AtomicInteger stripeInFlight = new AtomicInteger();
+    private static final AtomicInteger stripePeak = new AtomicInteger();
+    private static final AtomicInteger sessions = new AtomicInteger();
+    
+    @BeforeAll
+    static void startStripe() throws IOException {
+        stripe = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), REQUESTS);
+        stripe.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        stripe.createContext("/", exchange -> {
+            stripePeak.accumulateAndGet(stripeInFlight.incrementAndGet(), Math::max);
+            try {
+                exchange.getRequestBody().readAllBytes();
+                Thread.sleep(STRIPE_LATENCY);
+                String id = "cs_load_" + sessions.incrementAndGet();
+                byte[] body = ("{\"id\": \"" + id + "\", \"object\": \"checkout.session\", \"status\": \"open\", "
+                    + "\"expires_at\": " + (System.currentTimeMillis() / 1000 + 3600) + ", "
+                    + "\"url\": \"https://checkout.example/" + id + "\"}").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                stripeInFlight.decrementAndGet();
+            }
+        });
+        stripe.start();
+    }
+    
+    @AfterAll
+    static void stopStripe() {
+        stripe.stop(0);
+    }
+    
+    @Test
+    void virtualThreadsKeepCheckoutLatencyFlatWhenStripeIsSlow() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+        
+        System.out.printf("%n%-10s %8s %10s %10s %10s %12s%n", "threads", "ok", "p50 ms", "p99 ms", "req/s", "stripe peak");
+        for (Result result : List.of(platform, virtual)) {
+            System.out.printf("%-10s %8d %10d %10d %10.0f %12d%n", result.mode, result.ok,
+                result.percentile(50), result.percentile(99), result.throughput(), result.stripePeak);
+        }
+        
+        assertThat(platform.ok).isEqualTo(REQUESTS);
+        assertThat(virtual.ok).isEqualTo(REQUESTS);
+        // Platform threads queue behind the pool; virtual threads all wait on Stripe at once
+        assertThat(platform.stripePeak).isLessThanOrEqualTo(TOMCAT_THREADS);
+        assertThat(virtual.stripePeak).isGreaterThan(TOMCAT_THREADS * 2);
+        // Request CPU still queues for the cores, so the margin grows with the core count
+        assertThat(virtual.percentile(99)).isLessThan(platform.percentile(99));
+        assertThat(virtual.throughput()).isGreaterThan(platform.throughput() * 1.5);
+    }
+    
+    private Result run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        ConfigurableApplicationContext app = new SpringApplicationBuilder(NationalNinesApiApplication.class)
+            .profiles("test")
+            .run("--server.port=0",
+                "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.datasource.url=jdbc:h2:mem:load-" + mode + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--stripe.api.key=sk_test_load",
+                "--stripe.api.base=http://127.0.0.1:" + stripe.getAddress().getPort(),
+                // Let Tomcat's thread model be the only limit under test
+                "--stripe.checkout.max-concurrent-calls=" + REQUESTS,
+                "--stripe.checkout.circuit.slow-call-threshold=PT1M",
+                "--logging.level.root=WARN");
+        
+        ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder()
+                .executor(clientThreads)
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/orders"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofMinutes(2))
+                .POST(HttpRequest.BodyPublishers.ofString(ORDER))
+                .build();
+            
+            // Warm-up so class loading and the JIT aren't measured
+            burst(client, request, clientThreads, mode, WARM_UP);
+            stripePeak.set(0);
+            return burst(client, request, clientThreads, mode, REQUESTS);
+        } finally {
+            clientThreads.close();
+            app.close();
+        }
+    }
+    
+    private static Result burst(HttpClient client, HttpRequest request, ExecutorService clientThreads,
+                                String mode, int requests) {
+        long[] latencies = new long[requests];
+        AtomicInteger ok = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            int call = i;
+            calls.add(CompletableFuture.runAsync(() -> {
+                try {
+                    start.await();
+                    long began = System.nanoTime();
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    latencies[call] = System.nanoTime() - began;
+                    if (response.statusCode() == 200) {
+                        ok.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    latencies[call] = Long.MAX_VALUE;
+                }
+            }, clientThreads));
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+        long elapsed = System.nanoTime() - began;
+        
+        return new Result(mode, ok.get(), latencies, elapsed, stripePeak.get());
+    }
+    
+    private record Result(String mode, int ok, long[] latencies, long elapsedNanos, int stripePeak) {
+        
+        long percentile(int p) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            return Duration.ofNanos(sorted[(int) Math.ceil(p / 100.0 * sorted.length) - 1]).toMillis();
+        }
+        
+        double throughput() {
+            return latencies.length / (elapsedNanos / 1e9);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package uk.co.nationalninesgolf.api.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import uk.co.nationalninesgolf.api.model.Order;
+import uk.co.nationalninesgolf.api.service.OrderService;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static uk.co.nationalninesgolf.api.TestFixtures.order;
+
+/**
+ * Admin order lists load orders and their items in one query, however many orders there are
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AdminOrderQueryCountTest {
+    
+    private static final int ORDERS = 6;
+    private static final int ITEMS = 3;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private Statistics statistics;
+    
+    @BeforeEach
+    void createOrders() {
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = orderService.createOrder(order("Query Count " + i, ITEMS));
+            if (i % 2 == 0) {
+                orderService.markAsPaid(order.getId(), "pi_query_count_" + order.getId());
+            }
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+    
+    @Test
+    void allOrdersIsOneQuery() throws Exception {
+        assertQueries("/api/admin/orders", 1);
+    }
+    
+    @Test
+    void ordersByStatusIsOneQuery() throws Exception {
+        assertQueries("/api/admin/orders/status/PAID", 1);
+    }
+    
+    @Test
+    void ordersToFulfillIsOneQuery() throws Exception {
+        assertQueries("/api/admin/orders/to-fulfill", 1);
+    }
+    
+    private void assertQueries(String path, long expected) throws Exception {
+        statistics.clear();
+        mockMvc.perform(get(path).header("X-API-Key", "test-admin-key"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(greaterThanOrEqualTo(ORDERS / 2)))
+            // Items are serialized with each order
+            .andExpect(content().string(containsString("\"productName\":\"Item " + (ITEMS - 1) + "\"")));
+        
+        assertThat(statistics.getPrepareStatementCount())
+            .as("statements for %s", path)
+            .isEqualTo(expected);
+    }
+}
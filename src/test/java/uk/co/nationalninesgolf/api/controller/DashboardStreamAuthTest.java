@@ -0,0 +1,83 @@
+package uk.co.nationalninesgolf.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Browsers open the admin dashboard stream with a short-lived token instead of the X-API-Key header
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class DashboardStreamAuthTest {
+    
+    private static final String STREAM = "/api/admin/dashboard/stream";
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Test
+    void streamOpensWithATokenIssuedForTheKey() throws Exception {
+        String token = issueToken();
+        
+        MvcResult result = mockMvc.perform(get(STREAM).param("token", token))
+            .andExpect(status().isOk())
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        
+        // The first snapshot is written from the sender executor
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(10));
+        while (!result.getResponse().getContentAsString().contains("event:dashboard")
+            && Instant.now().isBefore(deadline)) {
+            Thread.sleep(50);
+        }
+        assertThat(result.getResponse().getContentAsString()).contains("event:dashboard");
+    }
+    
+    @Test
+    void streamRejectsMissingOrForgedTokens() throws Exception {
+        mockMvc.perform(get(STREAM))
+            .andExpect(status().isUnauthorized());
+        
+        String expiry = issueToken().split("\\.")[0];
+        mockMvc.perform(get(STREAM).param("token", expiry + ".bm90LWEtc2lnbmF0dXJl"))
+            .andExpect(status().isUnauthorized());
+    }
+    
+    @Test
+    void tokenOnlyOpensTheStream() throws Exception {
+        mockMvc.perform(get("/api/admin/dashboard").param("token", issueToken()))
+            .andExpect(status().isUnauthorized());
+    }
+    
+    @Test
+    void tokensAreOnlyIssuedForTheKey() throws Exception {
+        mockMvc.perform(post("/api/admin/dashboard/stream-token"))
+            .andExpect(status().isUnauthorized());
+    }
+    
+    private String issueToken() throws Exception {
+        String body = mockMvc.perform(post("/api/admin/dashboard/stream-token").header("X-API-Key", "test-admin-key"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("token").asText();
+    }
+}
@@ -0,0 +1,88 @@
+package uk.co.nationalninesgolf.api.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.co.nationalninesgolf.api.model.Order;
+import uk.co.nationalninesgolf.api.service.OrderService;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static uk.co.nationalninesgolf.api.TestFixtures.order;
+
+/**
+ * A payment committed by another instance, with no eviction reaching this one: checkout resumes
+ * see it straight away, and cached orders stop showing the old status within the mutable TTL
+ */
+@SpringBootTest(properties = "app.entity-cache.mutable-ttl=PT1S")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class EntityCacheStalenessTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Test
+    void checkoutResumeReadsTheDatabaseAndDropsTheCachedCopy() throws Exception {
+        Order order = cachedPendingOrder();
+        paidElsewhere(order);
+        
+        mockMvc.perform(post("/api/orders/" + order.getOrderNumber() + "/checkout"))
+            .andExpect(status().isConflict());
+        
+        assertThat(cachedStatus(order)).isEqualTo(Order.OrderStatus.PAID);
+    }
+    
+    @Test
+    void cachedOrdersExpireAfterTheMutableTtl() throws Exception {
+        Order order = cachedPendingOrder();
+        paidElsewhere(order);
+        assertThat(cachedStatus(order)).isEqualTo(Order.OrderStatus.PENDING);
+        
+        Thread.sleep(1500);
+        
+        assertThat(cachedStatus(order)).isEqualTo(Order.OrderStatus.PAID);
+    }
+    
+    private Order cachedPendingOrder() {
+        Order order = orderService.createOrder(order("Cache Staleness", 1));
+        assertThat(cachedStatus(order)).isEqualTo(Order.OrderStatus.PENDING);
+        return order;
+    }
+    
+    private void paidElsewhere(Order order) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (postgres()) {
+                // Skip the NOTIFY trigger, as if the invalidation never reached this instance
+                jdbcTemplate.execute("SET LOCAL session_replication_role = replica");
+            }
+            jdbcTemplate.update("UPDATE orders SET status = 'PAID' WHERE id = ?", order.getId());
+        });
+    }
+    
+    private boolean postgres() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+            connection.getMetaData().getDatabaseProductName().equals("PostgreSQL")));
+    }
+    
+    private Order.OrderStatus cachedStatus(Order order) {
+        return orderService.findByOrderNumber(order.getOrderNumber()).orElseThrow().getStatus();
+    }
+}
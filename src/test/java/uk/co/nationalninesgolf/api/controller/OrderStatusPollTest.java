@@ -0,0 +1,53 @@
+package uk.co.nationalninesgolf.api.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import uk.co.nationalninesgolf.api.model.Order;
+import uk.co.nationalninesgolf.api.service.OrderService;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static uk.co.nationalninesgolf.api.TestFixtures.order;
+
+/**
+ * The status poll reads the database, so a payment committed by another instance shows at once
+ * even while the order sits in this instance's entity cache
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderStatusPollTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void statusPollSeesChangesTheEntityCacheMissed() throws Exception {
+        Order order = orderService.createOrder(order("Status Poll", 1));
+        String path = "/api/orders/" + order.getOrderNumber() + "/status";
+        // Cached by natural id
+        assertThat(orderService.findByOrderNumber(order.getOrderNumber()).orElseThrow().getStatus())
+            .isEqualTo(Order.OrderStatus.PENDING);
+        
+        // Another instance's webhook - no eviction reaches this one
+        jdbcTemplate.update("UPDATE orders SET status = 'PAID' WHERE id = ?", order.getId());
+        
+        mockMvc.perform(get(path))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("PAID"));
+    }
+}
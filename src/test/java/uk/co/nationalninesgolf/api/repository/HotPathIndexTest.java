@@ -0,0 +1,273 @@
+package uk.co.nationalninesgolf.api.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.co.nationalninesgolf.api.model.EmailLink;
+import uk.co.nationalninesgolf.api.model.Entry;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/**
+ * Every hot-path repository query has an index to use. The SQL is what Hibernate emits for the
+ * repository method, explained with the same parameters. H2 (the default) fails on a full table
+ * scan; under the postgres profile the plan must also use the named index, with a season's worth
+ * of entries and orders seeded and sequential scans priced out so the planner chooses as it would in production.
+ * H2 chooses between indexes by rules of its own, so the name is only checked on PostgreSQL.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+    + "uk.co.nationalninesgolf.api.repository.HotPathIndexTest$SqlCapture")
+@ActiveProfiles("test")
+class HotPathIndexTest {
+    
+    private static final LocalDateTime AT = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final int SEED_ROWS = 2_000;
+    private static final long SEED_IDS = 1_000_000_000L;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private EntryRepository entries;
+    
+    @Autowired
+    private OrderRepository orders;
+    
+    @Autowired
+    private OutboxEmailRepository outbox;
+    
+    @Autowired
+    private WebhookInboxRepository inbox;
+    
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecords;
+    
+    @Autowired
+    private EmailLinkRepository emailLinks;
+    
+    static Stream<Arguments> hotPaths() {
+        return Stream.of(
+            // Public entry lists (keyset) and the waitlist
+            hotPath("idx_entries_event_status_created",
+                test -> test.entries.findSummariesByEventAndPaymentStatusAfter(
+                    "NATIONAL_NINES", Entry.PaymentStatus.PAID, AT, 10L, Limit.of(50)),
+                "NATIONAL_NINES", "PAID", AT, AT, 10L, 0, 50),
+            hotPath("idx_entries_event_created",
+                test -> test.entries.findSummariesByEventAfter("NATIONAL_NINES", AT, 10L, Limit.of(50)),
+                "NATIONAL_NINES", AT, AT, 10L, 0, 50),
+            hotPath("idx_entries_event_status_created",
+                test -> test.entries.lockWaitlistHead("NATIONAL_NINES", Limit.of(1)),
+                "NATIONAL_NINES", 0, 1),
+            // Abandoned checkout reapers - PENDING rows in id order, aged by COALESCE(...)
+            hotPath("idx_entries_pending",
+                test -> test.entries.findStalePendingIds(AT, 10L, Limit.of(100)),
+                AT, 10L, 0, 100),
+            hotPath("idx_orders_pending",
+                test -> test.orders.findStalePendingIds(AT, 10L, Limit.of(100)),
+                AT, 10L, 0, 100),
+            // Webhook and checkout lookups
+            hotPath("idx_entries_stripe_session",
+                test -> test.entries.findByStripeSessionId("cs_test"),
+                "cs_test"),
+            hotPath("idx_entries_stripe_payment_intent",
+                test -> test.entries.findByStripePaymentIntentId("pi_test"),
+                "pi_test"),
+            hotPath("idx_orders_stripe_session",
+                test -> test.orders.findByStripeSessionId("cs_test"),
+                "cs_test"),
+            hotPath("idx_orders_stripe_payment_intent",
+                test -> test.orders.findByStripePaymentIntentId("pi_test"),
+                "pi_test"),
+            hotPath("webhook_inbox_stripe_event_id_key",
+                test -> test.inbox.existsByStripeEventId("evt_test"),
+                "evt_test", 1),
+            // Fulfilment, recent orders and their items
+            hotPath("idx_orders_status_created",
+                test -> test.orders.findOrdersToFulfill()),
+            hotPath("idx_orders_created",
+                test -> test.orders.findRecentOrders(AT),
+                AT),
+            hotPath("idx_order_items_order",
+                test -> test.orders.findWithItemsByIdIn(List.of(10L)),
+                10L),
+            // Worker polls and purges
+            hotPath("idx_email_outbox_status_due",
+                test -> test.outbox.findDueIds(AT, PageRequest.ofSize(20)),
+                AT, 0, 20),
+            hotPath("idx_webhook_inbox_status_due",
+                test -> test.inbox.findDue(AT, PageRequest.ofSize(20)),
+                AT, 0, 20),
+            hotPath("idx_idempotency_keys_expires",
+                test -> test.idempotencyRecords.deleteExpired(AT),
+                AT),
+            // Idempotency replays and customer lookups by email
+            hotPath("idempotency_keys_scope_idempotency_key_key",
+                test -> test.idempotencyRecords.findByScopeAndIdempotencyKeyAndExpiresAtAfter("entries", "key", AT),
+                "entries", "key", AT),
+            hotPath("uk_email_links_email_type_target",
+                test -> test.emailLinks.findTargetIds("one@example.com", EmailLink.TargetType.ENTRY),
+                "one@example.com", "ENTRY"),
+            hotPath("uk_email_links_email_type_target",
+                test -> test.emailLinks.existsByEmail("one@example.com"),
+                "one@example.com", 1)
+        );
+    }
+    
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotPaths")
+    void queryUsesItsIndex(String index, Consumer<HotPathIndexTest> query, List<Object> parameters) throws SQLException {
+        String sql = capture(query);
+        
+        try (Connection connection = dataSource.getConnection()) {
+            boolean postgres = isPostgres(connection);
+            String plan = explain(connection, postgres, sql, parameters);
+            assertThat(plan)
+                .as("plan for %s", sql)
+                .doesNotContainIgnoringCase("tableScan")
+                .doesNotContainIgnoringCase("Seq Scan");
+            if (postgres) {
+                assertThat(plan).as("plan for %s", sql).contains(" " + index + " ");
+            }
+        }
+    }
+    
+    private static Arguments hotPath(String index, Consumer<HotPathIndexTest> query, Object... parameters) {
+        return arguments(index, query, List.of(parameters));
+    }
+    
+    /**
+     * The last statement Hibernate sent while running the repository method
+     */
+    private String capture(Consumer<HotPathIndexTest> query) {
+        SqlCapture.statements.remove();
+        transactionTemplate.executeWithoutResult(status -> {
+            query.accept(this);
+            status.setRollbackOnly();
+        });
+        List<String> statements = SqlCapture.statements.get();
+        assertThat(statements).isNotEmpty();
+        return statements.get(statements.size() - 1);
+    }
+    
+    private static boolean isPostgres(Connection connection) throws SQLException {
+        return connection.getMetaData().getDatabaseProductName().equals("PostgreSQL");
+    }
+    
+    private static String explain(Connection connection, boolean postgres, String sql, List<Object> parameters)
+            throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            if (postgres) {
+                seed(connection);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("ANALYZE entries");
+                    statement.execute("ANALYZE orders");
+                    statement.execute("SET LOCAL enable_seqscan = off");
+                }
+            }
+            
+            StringBuilder plan = new StringBuilder();
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                assertThat(explain.getParameterMetaData().getParameterCount())
+                    .as("parameters of %s", sql)
+                    .isEqualTo(parameters.size());
+                for (int i = 0; i < parameters.size(); i++) {
+                    Object parameter = parameters.get(i);
+                    explain.setObject(i + 1, parameter instanceof LocalDateTime time ? Timestamp.valueOf(time) : parameter);
+                }
+                try (ResultSet rows = explain.executeQuery()) {
+                    while (rows.next()) {
+                        plan.append(rows.getString(1)).append('\n');
+                    }
+                }
+            }
+            return plan.toString();
+        } finally {
+            connection.rollback();
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+    
+    /**
+     * Uncommitted entries and orders shaped like a season's data - a few events, mostly paid or
+     * fulfilled, a few abandoned - so the planner weighs the indexes on realistic row counts rather
+     * than an empty table. IDs sit above any the sequences have handed out.
+     */
+    private static void seed(Connection connection) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO entries (id, event, club_name, player1handicap, player2handicap, marketing_opt_in, "
+                    + "entry_fee, payment_status, created_at) VALUES (?, ?, ?, 5, 7, FALSE, 10, ?, ?)")) {
+            for (int i = 1; i <= SEED_ROWS; i++) {
+                insert.setLong(1, SEED_IDS + i);
+                insert.setString(2, i % 4 == 0 ? "NATIONAL_NINES" : "EVENT_" + i % 4);
+                insert.setString(3, "Seed Club " + i);
+                insert.setString(4, switch (i % 20) {
+                    case 0 -> "PENDING";
+                    case 1 -> "WAITLISTED";
+                    case 2 -> "CANCELLED";
+                    default -> "PAID";
+                });
+                insert.setTimestamp(5, Timestamp.valueOf(AT.minusMinutes(i)));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO orders (id, order_number, delivery_method, subtotal, shipping_cost, total, status, "
+                    + "created_at) VALUES (?, ?, 'COLLECTION', 10, 0, 10, ?, ?)")) {
+            for (int i = 1; i <= SEED_ROWS; i++) {
+                insert.setLong(1, SEED_IDS + i);
+                insert.setString(2, "SEED-" + i);
+                insert.setString(3, switch (i % 20) {
+                    case 0 -> "PENDING";
+                    case 1 -> "PAID";
+                    case 2 -> "PROCESSING";
+                    case 3 -> "CANCELLED";
+                    default -> i % 2 == 0 ? "COLLECTED" : "DELIVERED";
+                });
+                insert.setTimestamp(4, Timestamp.valueOf(AT.minusMinutes(i)));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+    
+    /**
+     * Records the SQL Hibernate prepares on the calling thread
+     */
+    public static class SqlCapture implements StatementInspector {
+        
+        static final ThreadLocal<List<String>> statements = ThreadLocal.withInitial(ArrayList::new);
+        
+        @Override
+        public String inspect(String sql) {
+            statements.get().add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package uk.co.nationalninesgolf.api.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The PostgreSQL-only migrations under db/vendor/postgresql applied. Runs under the postgres
+ * profile: mvn -Ppostgres test
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "spring.datasource.url", matches = "jdbc:postgresql:.*")
+class PostgresMigrationTest {
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void vendorMigrationsApplied() {
+        assertThat(jdbcTemplate.queryForList(
+            "SELECT version FROM flyway_schema_history WHERE success AND version IN ('1.1', '1.2', '2.1', '5.1')", String.class))
+            .containsExactlyInAnyOrder("1.1", "1.2", "2.1", "5.1");
+    }
+    
+    @Test
+    void sequencesArePastExistingRows() {
+        for (String table : new String[] {"entries", "orders", "order_items"}) {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            Long lastValue = jdbcTemplate.queryForObject("SELECT last_value FROM " + table + "_seq", Long.class);
+            assertThat(lastValue).as("%s_seq", table).isGreaterThanOrEqualTo(maxId);
+        }
+    }
+    
+    @Test
+    void statusCheckAcceptsWaitlisted() {
+        String check = jdbcTemplate.queryForObject(
+            "SELECT pg_get_constraintdef(oid) FROM pg_constraint WHERE conname = 'entries_payment_status_check'", String.class);
+        assertThat(check).contains("WAITLISTED");
+    }
+    
+    @Test
+    void cachedTablesNotifyOnChange() {
+        assertThat(jdbcTemplate.queryForList(
+            "SELECT tgname FROM pg_trigger WHERE tgname LIKE '%_entity_cache'", String.class))
+            .containsExactlyInAnyOrder("entries_entity_cache", "orders_entity_cache", "order_items_entity_cache");
+    }
+}
@@ -0,0 +1,207 @@
+package uk.co.nationalninesgolf.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import uk.co.nationalninesgolf.api.StripeStandIn;
+import uk.co.nationalninesgolf.api.model.Entry;
+import uk.co.nationalninesgolf.api.repository.EntryRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static uk.co.nationalninesgolf.api.TestFixtures.entry;
+import static uk.co.nationalninesgolf.api.TestFixtures.newEvent;
+import static uk.co.nationalninesgolf.api.TestFixtures.stripeSignature;
+
+/**
+ * A payer resuming checkout gets their open session back; sessions stop being reused once Stripe
+ * completes or expires them, and a session ID sent in a new entry is never looked at
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CheckoutSessionReuseTest {
+    
+    private static StripeStandIn stripe;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private StripeService stripeService;
+    
+    @Autowired
+    private EntryService entryService;
+    
+    @Autowired
+    private WebhookInboxWorker inboxWorker;
+    
+    @Autowired
+    private CheckoutSessionCache sessionCache;
+    
+    @Autowired
+    private EventCatalog eventCatalog;
+    
+    @Autowired
+    private EntryRepository entryRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${stripe.checkout.reuse-margin}")
+    private Duration reuseMargin;
+    
+    @BeforeAll
+    static void startStripe() throws IOException {
+        stripe = new StripeStandIn();
+    }
+    
+    @AfterAll
+    static void stopStripe() {
+        stripe.close();
+    }
+    
+    @DynamicPropertySource
+    static void stripeProperties(DynamicPropertyRegistry registry) {
+        registry.add("stripe.api.key", () -> "sk_test_reuse");
+        registry.add("stripe.api.base", () -> stripe.url());
+    }
+    
+    @BeforeEach
+    void resetStripe() {
+        stripe.reset();
+    }
+    
+    @Test
+    void resumeReusesTheOpenSession() throws Exception {
+        Entry entry = pendingEntry("Reuse");
+        String url = stripeService.createEntryCheckoutSession(entry);
+        
+        assertThat(resume(entry)).isEqualTo(url);
+        assertThat(stripe.creates()).isEqualTo(1);
+        assertThat(stripe.retrieves()).isZero();
+        
+        // Another instance, or a restart - found from the stored session ID
+        sessionCache.evict(CheckoutSessionCache.entryKey(entry.getId()));
+        assertThat(resume(entry)).isEqualTo(url);
+        assertThat(resume(entry)).isEqualTo(url);
+        assertThat(stripe.creates()).isEqualTo(1);
+        assertThat(stripe.retrieves()).isEqualTo(1);
+    }
+    
+    @Test
+    void completedWebhookEvictsTheSession() throws Exception {
+        Entry entry = pendingEntry("Completed");
+        stripeService.createEntryCheckoutSession(entry);
+        
+        deliver("checkout.session.completed", entry);
+        
+        assertThat(sessionCache.url(CheckoutSessionCache.entryKey(entry.getId()))).isEmpty();
+    }
+    
+    @Test
+    void expiredWebhookEvictsTheSession() throws Exception {
+        Entry entry = pendingEntry("Expired");
+        String url = stripeService.createEntryCheckoutSession(entry);
+        String sessionId = stored(entry).getStripeSessionId();
+        
+        stripe.expire(sessionId);
+        deliver("checkout.session.expired", entry);
+        
+        // Checked with Stripe, found expired, replaced
+        String resumed = resume(entry);
+        assertThat(resumed).isNotEqualTo(url);
+        assertThat(stripe.retrieves()).isEqualTo(1);
+        assertThat(stripe.creates()).isEqualTo(2);
+        assertThat(stored(entry).getStripeSessionId()).isNotEqualTo(sessionId);
+    }
+    
+    @Test
+    void sessionsNearExpiryAreSweptAndReplaced() throws Exception {
+        Entry entry = pendingEntry("Near Expiry");
+        stripe.expiresIn(reuseMargin.plusSeconds(2));
+        String url = stripeService.createEntryCheckoutSession(entry);
+        assertThat(resume(entry)).isEqualTo(url);
+        
+        Thread.sleep(2_500);
+        sessionCache.sweep();
+        stripe.expiresIn(Duration.ofHours(1));
+        
+        // Still open at Stripe, but too close to expiry to hand out
+        assertThat(resume(entry)).isNotEqualTo(url);
+        assertThat(stripe.retrieves()).isEqualTo(1);
+        assertThat(stripe.creates()).isEqualTo(2);
+    }
+    
+    @Test
+    void sessionIdInANewEntryIsIgnored() throws Exception {
+        Entry victim = pendingEntry("Victim");
+        String victimUrl = stripeService.createEntryCheckoutSession(victim);
+        String victimSession = stored(victim).getStripeSessionId();
+        
+        Entry forged = entry(victim.getEvent(), "Forger " + System.nanoTime());
+        forged.setEntryFee(victim.getEntryFee());
+        forged.setStripeSessionId(victimSession);
+        forged.setPaymentStatus(Entry.PaymentStatus.PAID);
+        String body = objectMapper.writeValueAsString(forged);
+        assertThat(body).contains(victimSession);
+        String response = mockMvc.perform(post("/api/entries")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.entry.paymentStatus").value("PENDING"))
+            .andReturn().getResponse().getContentAsString();
+        
+        JsonNode created = objectMapper.readTree(response);
+        assertThat(created.path("checkoutUrl").asText()).isNotEqualTo(victimUrl);
+        assertThat(stripe.retrieves()).isZero();
+        assertThat(entryRepository.findById(created.path("entry").path("id").asLong()).orElseThrow()
+            .getStripeSessionId()).isNotEqualTo(victimSession);
+    }
+    
+    private Entry pendingEntry(String club) {
+        String event = newEvent(eventCatalog, "REUSE", 10);
+        return entryService.createEntry(entry(event, club + " " + System.nanoTime())).orElseThrow();
+    }
+    
+    /**
+     * The resume endpoint, reading the entry back from the database as it does
+     */
+    private String resume(Entry entry) throws Exception {
+        String response = mockMvc.perform(post("/api/entries/" + entry.getId() + "/checkout"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).path("checkoutUrl").asText();
+    }
+    
+    private Entry stored(Entry entry) {
+        return entryRepository.findById(entry.getId()).orElseThrow();
+    }
+    
+    private void deliver(String type, Entry entry) throws Exception {
+        String payload = """
+            {"id": "evt_%s_%d", "object": "event", "api_version": "2023-10-16", "type": "%s",
+             "data": {"object": {"id": "%s", "object": "checkout.session", "payment_intent": "pi_reuse_%d",
+              "metadata": {"type": "entry", "entry_id": "%d"}}}}
+            """.formatted(type, entry.getId(), type, stored(entry).getStripeSessionId(), entry.getId(), entry.getId());
+        stripeService.handleWebhook(payload, stripeSignature(payload));
+        inboxWorker.drain();
+    }
+}
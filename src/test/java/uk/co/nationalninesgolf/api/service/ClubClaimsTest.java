@@ -0,0 +1,88 @@
+package uk.co.nationalninesgolf.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import uk.co.nationalninesgolf.api.model.Entry;
+import uk.co.nationalninesgolf.api.repository.CompetitionEventRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.co.nationalninesgolf.api.TestFixtures.entry;
+import static uk.co.nationalninesgolf.api.TestFixtures.newEvent;
+import static uk.co.nationalninesgolf.api.TestFixtures.runTogether;
+
+/**
+ * A club's secretaries submitting at once - however the name is spelled, one entry gets in
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ClubClaimsTest {
+    
+    private static final int SUBMISSIONS = 200;
+    
+    // All normalize to the same club key
+    private static final List<String> SPELLINGS = List.of(
+        "Royal St George's Golf Club", "royal st georges gc", "ROYAL ST. GEORGE’S GOLF CLUB", "Royal St George's G.C.");
+    
+    @Autowired
+    private EntryService entryService;
+    
+    @Autowired
+    private ClubClaims clubClaims;
+    
+    @Autowired
+    private EventCatalog eventCatalog;
+    
+    @Autowired
+    private CompetitionEventRepository eventRepository;
+    
+    @Test
+    void concurrentSubmissionsFromOneClubCreateOneEntry() throws Exception {
+        String event = newEvent(eventCatalog, "CLAIM_RACE", SUBMISSIONS);
+        
+        List<Optional<Entry>> results = submitTogether(event, false);
+        
+        assertThat(results).filteredOn(Optional::isPresent).hasSize(1);
+        assertThat(entryService.countByEvent(event)).isEqualTo(1);
+        assertThat(heldSlots(event)).isEqualTo(1);
+    }
+    
+    @Test
+    void databaseRejectsClubsNoClaimSetKnowsAbout() throws Exception {
+        String event = newEvent(eventCatalog, "CLAIM_DB", SUBMISSIONS);
+        assertThat(entryService.createEntry(entry(event, SPELLINGS.get(0)))).isPresent();
+        
+        // As if every submission landed on an instance that hasn't seen the first entry
+        List<Optional<Entry>> results = submitTogether(event, true);
+        
+        assertThat(results).allMatch(Optional::isEmpty);
+        assertThat(entryService.countByEvent(event)).isEqualTo(1);
+        // Rejected inserts roll back the slot they took
+        assertThat(heldSlots(event)).isEqualTo(1);
+    }
+    
+    private List<Optional<Entry>> submitTogether(String event, boolean forgetClaims) throws Exception {
+        String clubKey = ClubNames.normalize(SPELLINGS.get(0));
+        List<Callable<Optional<Entry>>> submissions = new ArrayList<>();
+        for (int i = 0; i < SUBMISSIONS; i++) {
+            String club = SPELLINGS.get(i % SPELLINGS.size());
+            submissions.add(() -> {
+                if (forgetClaims) {
+                    clubClaims.release(event, clubKey);
+                }
+                return entryService.createEntry(entry(event, club));
+            });
+        }
+        return runTogether(32, submissions);
+    }
+    
+    private int heldSlots(String event) {
+        return eventRepository.findById(event).orElseThrow().getHeldSlots();
+    }
+}
@@ -0,0 +1,80 @@
+package uk.co.nationalninesgolf.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import uk.co.nationalninesgolf.api.model.Entry;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.co.nationalninesgolf.api.TestFixtures.entry;
+import static uk.co.nationalninesgolf.api.TestFixtures.newEvent;
+
+/**
+ * Autocomplete offers clubs from the seed list and live entries - names only cancelled entries
+ * used drop out, whether the entry was withdrawn or reaped
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ClubNameIndexTest {
+    
+    @Autowired
+    private EntryService entryService;
+    
+    @Autowired
+    private ClubNameIndex clubNameIndex;
+    
+    @Autowired
+    private PendingReaper pendingReaper;
+    
+    @Autowired
+    private EventCatalog eventCatalog;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void withdrawnEntriesDropTheirClubName() {
+        String club = uniqueClub();
+        Entry entry = entryService.createEntry(entry(newEvent(eventCatalog, "CLUB_INDEX", 10), club)).orElseThrow();
+        assertThat(clubNameIndex.search(club, 10)).containsExactly(club);
+        
+        assertThat(entryService.withdraw(entry)).isTrue();
+        
+        assertThat(clubNameIndex.search(club, 10)).isEmpty();
+    }
+    
+    @Test
+    void reapedEntriesDropTheirClubName() {
+        String club = uniqueClub();
+        Entry entry = entryService.createEntry(entry(newEvent(eventCatalog, "CLUB_INDEX", 10), club)).orElseThrow();
+        jdbcTemplate.update("UPDATE entries SET created_at = ? WHERE id = ?",
+            LocalDateTime.now().minusDays(7), entry.getId());
+        
+        pendingReaper.reap();
+        
+        assertThat(clubNameIndex.search(club, 10)).isEmpty();
+    }
+    
+    @Test
+    void seedNamesStayWhenTheirEntriesAreCancelled() {
+        String club = "Ashford (Kent) Golf Club";
+        Entry entry = entryService.createEntry(entry(newEvent(eventCatalog, "CLUB_INDEX", 10), club)).orElseThrow();
+        
+        assertThat(entryService.withdraw(entry)).isTrue();
+        
+        assertThat(clubNameIndex.search("ashford", 10)).contains(club);
+    }
+    
+    // Letters only, so normalization keeps the whole name
+    private static String uniqueClub() {
+        StringBuilder word = new StringBuilder("Zq");
+        for (char digit : Long.toString(System.nanoTime()).toCharArray()) {
+            word.append((char) ('a' + digit - '0'));
+        }
+        return word + " Golf Club";
+    }
+}
@@ -0,0 +1,139 @@
+package uk.co.nationalninesgolf.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.co.nationalninesgolf.api.model.Entry;
+import uk.co.nationalninesgolf.api.repository.CompetitionEventRepository;
+import uk.co.nationalninesgolf.api.repository.EntryRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.co.nationalninesgolf.api.TestFixtures.entry;
+import static uk.co.nationalninesgolf.api.TestFixtures.newEvent;
+import static uk.co.nationalninesgolf.api.TestFixtures.runTogether;
+
+/**
+ * Field capacity with two EventCapacity instances sharing one database, as two app instances would
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class EventCapacityTest {
+    
+    @Autowired
+    private EventCapacity eventCapacity;
+    
+    @Autowired
+    private EntryService entryService;
+    
+    @Autowired
+    private EventCatalog eventCatalog;
+    
+    @Autowired
+    private EntryRepository entryRepository;
+    
+    @Autowired
+    private CompetitionEventRepository eventRepository;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Test
+    void slotsAreNeverOversubscribedAcrossInstances() throws Exception {
+        String event = newEvent(eventCatalog, "CAPACITY_RACE", 10);
+        EventCapacity otherInstance = secondInstance();
+        
+        AtomicInteger held = new AtomicInteger();
+        List<Callable<Void>> attempts = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            EventCapacity instance = i % 2 == 0 ? eventCapacity : otherInstance;
+            attempts.add(() -> {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> instance.tryHold(event)))) {
+                    held.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        runTogether(attempts.size(), attempts);
+        
+        assertThat(held).hasValue(10);
+        assertThat(heldSlots(event)).isEqualTo(10);
+    }
+    
+    @Test
+    void waitlistIsPromotedOnceWhicheverInstancePromotes() throws Exception {
+        String event = newEvent(eventCatalog, "CAPACITY_PROMOTE", 3);
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            entries.add(entryService.createEntry(entry(event, "Promote Club " + i)).orElseThrow());
+        }
+        assertThat(entries).extracting(Entry::getPaymentStatus).containsExactly(
+            Entry.PaymentStatus.PENDING, Entry.PaymentStatus.PENDING, Entry.PaymentStatus.PENDING,
+            Entry.PaymentStatus.WAITLISTED, Entry.PaymentStatus.WAITLISTED, Entry.PaymentStatus.WAITLISTED,
+            Entry.PaymentStatus.WAITLISTED, Entry.PaymentStatus.WAITLISTED);
+        assertThat(entryService.waitlistPosition(entries.get(5))).isEqualTo(3);
+        
+        // Two places free up; both instances promote at once
+        List<Long> pending = entries.subList(0, 2).stream().map(Entry::getId).toList();
+        assertThat(eventCapacity.cancelPending(pending, LocalDateTime.now().plusMinutes(1))).isEqualTo(2);
+        assertThat(eventCapacity.cancelPending(pending, LocalDateTime.now().plusMinutes(1))).isZero();
+        EventCapacity otherInstance = secondInstance();
+        runTogether(2, List.of(
+            () -> { eventCapacity.promoteAll(); return null; },
+            () -> { otherInstance.promoteAll(); return null; }));
+        
+        assertThat(statusOf(entries.get(3))).isEqualTo(Entry.PaymentStatus.PENDING);
+        assertThat(statusOf(entries.get(4))).isEqualTo(Entry.PaymentStatus.PENDING);
+        assertThat(statusOf(entries.get(5))).isEqualTo(Entry.PaymentStatus.WAITLISTED);
+        assertThat(heldSlots(event)).isEqualTo(3);
+        assertThat(entryService.waitlistPosition(entryRepository.findById(entries.get(5).getId()).orElseThrow()))
+            .isEqualTo(1);
+    }
+    
+    @Test
+    void withdrawnEntryHandsItsSlotToTheWaitlistHead() {
+        String event = newEvent(eventCatalog, "CAPACITY_WITHDRAW", 1);
+        Entry pending = entryService.createEntry(entry(event, "Withdraw Club")).orElseThrow();
+        Entry first = entryService.createEntry(entry(event, "Waiting Club 1")).orElseThrow();
+        Entry second = entryService.createEntry(entry(event, "Waiting Club 2")).orElseThrow();
+        assertThat(first.getPaymentStatus()).isEqualTo(Entry.PaymentStatus.WAITLISTED);
+        
+        // No scheduled promotion runs - the withdrawal itself fills the place
+        assertThat(entryService.withdraw(pending)).isTrue();
+        
+        assertThat(statusOf(pending)).isEqualTo(Entry.PaymentStatus.CANCELLED);
+        assertThat(statusOf(first)).isEqualTo(Entry.PaymentStatus.PENDING);
+        assertThat(statusOf(second)).isEqualTo(Entry.PaymentStatus.WAITLISTED);
+        assertThat(heldSlots(event)).isEqualTo(1);
+        assertThat(entryService.withdraw(pending)).isFalse();
+    }
+    
+    private EventCapacity secondInstance() {
+        EventCapacity instance = new EventCapacity(entryRepository, eventRepository, eventCatalog,
+            eventPublisher, transactionTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(instance, "fullCacheTtl", Duration.ZERO);
+        return instance;
+    }
+    
+    private int heldSlots(String event) {
+        return eventRepository.findById(event).orElseThrow().getHeldSlots();
+    }
+    
+    private Entry.PaymentStatus statusOf(Entry entry) {
+        return entryRepository.findById(entry.getId()).orElseThrow().getPaymentStatus();
+    }
+}
@@ -0,0 +1,65 @@
+package uk.co.nationalninesgolf.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import uk.co.nationalninesgolf.api.model.Order;
+import uk.co.nationalninesgolf.api.repository.OrderRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every order is exported, items or not, no cell reaches a spreadsheet as a live formula, and a
+ * CSV with no rows still has its header
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ExportServiceTest {
+    
+    @Autowired
+    private ExportService exportService;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Test
+    void ordersWithoutItemsAreExportedWithFormulasNeutralised() throws Exception {
+        String orderNumber = "NN-EXPORT-" + System.nanoTime();
+        orderRepository.save(Order.builder()
+            .orderNumber(orderNumber)
+            .customerName("=HYPERLINK(\"http://example.com\")")
+            .customerEmail("export@example.com")
+            .customerPhone("+44 1234 567890")
+            .deliveryMethod(Order.DeliveryMethod.COLLECTION)
+            .subtotal(BigDecimal.ZERO)
+            .shippingCost(BigDecimal.ZERO)
+            .total(BigDecimal.ZERO)
+            .status(Order.OrderStatus.CANCELLED)
+            .build());
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportOrders(Order.OrderStatus.CANCELLED, ExportService.Format.CSV, out);
+        
+        String row = out.toString(StandardCharsets.UTF_8).lines()
+            .filter(line -> line.startsWith(orderNumber))
+            .findFirst().orElseThrow();
+        assertThat(row)
+            .contains("\"'=HYPERLINK(\"\"http://example.com\"\")\"")
+            .contains(",'+44 1234 567890,");
+    }
+    
+    @Test
+    void emptyExportStillHasTheHeader() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportEntries("NO_SUCH_EVENT_" + System.nanoTime(), ExportService.Format.CSV, out);
+        
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+            "id,event,clubName,player1Name,player1Email,player1Handicap,player2Name,player2Email,player2Handicap,"
+                + "contactPhone,marketingOptIn,paymentStatus,entryFee,createdAt,paidAt\r\n");
+    }
+}
@@ -0,0 +1,98 @@
+package uk.co.nationalninesgolf.api.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Completed keys beyond the memory cap are evicted from memory but still replay from the database;
+ * a request still running is never evicted, so its duplicates keep waiting for it
+ */
+@SpringBootTest(properties = "app.idempotency.max-cached-keys=2")
+@ActiveProfiles("test")
+class IdempotencyServiceTest {
+    
+    private static final String SCOPE = "test";
+    
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Test
+    void completedKeysBeyondTheCapReplayFromTheDatabase() {
+        AtomicInteger runs = new AtomicInteger();
+        String prefix = "cap-" + System.nanoTime() + "-";
+        for (int i = 0; i < 5; i++) {
+            idempotencyService.execute(SCOPE, prefix + i, Map.of("n", i), () -> created(runs));
+        }
+        assertThat(runs.get()).isEqualTo(5);
+        idempotencyService.purge();
+        assertThat(meterRegistry.get("idempotency.keys.cached").gauge().value()).isLessThanOrEqualTo(2);
+        
+        ResponseEntity<?> retry = idempotencyService.execute(SCOPE, prefix + 4, Map.of("n", 4), () -> created(runs));
+        
+        assertThat(runs.get()).isEqualTo(5);
+        assertThat(retry.getHeaders().getFirst("Idempotent-Replayed")).isEqualTo("true");
+    }
+    
+    @Test
+    void runningKeysSurviveEviction() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        String prefix = "running-" + System.nanoTime() + "-";
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<?>> first = pool.submit(() ->
+                idempotencyService.execute(SCOPE, prefix + "slow", Map.of(), () -> {
+                    started.countDown();
+                    await(release);
+                    return created(runs);
+                }));
+            started.await();
+            
+            // Fill memory well past the cap while it runs
+            for (int i = 0; i < 10; i++) {
+                idempotencyService.execute(SCOPE, prefix + i, Map.of("n", i), () -> created(runs));
+            }
+            idempotencyService.purge();
+            
+            Future<ResponseEntity<?>> duplicate = pool.submit(() ->
+                idempotencyService.execute(SCOPE, prefix + "slow", Map.of(), () -> created(runs)));
+            release.countDown();
+            
+            assertThat(first.get().getStatusCode().value()).isEqualTo(201);
+            assertThat(duplicate.get().getHeaders().getFirst("Idempotent-Replayed")).isEqualTo("true");
+            assertThat(runs.get()).isEqualTo(11);
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static ResponseEntity<?> created(AtomicInteger runs) {
+        return ResponseEntity.status(201).body(Map.of("run", runs.incrementAndGet()));
+    }
+}
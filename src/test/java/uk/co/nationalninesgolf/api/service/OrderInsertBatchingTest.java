@@ -0,0 +1,46 @@
+package uk.co.nationalninesgolf.api.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import uk.co.nationalninesgolf.api.model.Order;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.co.nationalninesgolf.api.TestFixtures.order;
+
+/**
+ * An order and its items are inserted as JDBC batches, not one statement per row
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderInsertBatchingTest {
+    
+    private static final int ITEMS = 20;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Test
+    void orderWithItemsIsOneBatchPerTable() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Pooled sequences read twice before handing out their first block
+        orderService.createOrder(order("Batch Customer", 1));
+        orderService.createOrder(order("Batch Customer", 1));
+        
+        statistics.clear();
+        orderService.createOrder(order("Batch Customer", ITEMS));
+        
+        // Order + items + customer lookup link
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(ITEMS + 2);
+        // One statement per table, IDs from the sequence blocks in memory; unbatched this is ITEMS + 2
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,67 @@
+package uk.co.nationalninesgolf.api.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import uk.co.nationalninesgolf.api.NationalNinesApiApplication;
+import uk.co.nationalninesgolf.api.TestFixtures;
+import uk.co.nationalninesgolf.api.model.Order;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to write an order with ten items, batched (the configured batch size of 50) against
+ * one INSERT per row (batch size 1 - the round trips IDENTITY IDs forced).
+ * Uses the test profile's in-memory H2, so it shows statement overhead rather than network
+ * latency; against PostgreSQL the gap grows with every round trip saved.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args=OrderInsertBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderInsertBenchmark {
+    
+    private static final int ITEMS = 10;
+    
+    @Param({"1", "50"})
+    private int jdbcBatchSize;
+    
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    
+    @Setup
+    public void start() {
+        context = new SpringApplicationBuilder(NationalNinesApiApplication.class)
+            .web(WebApplicationType.NONE)
+            .profiles("test")
+            .run("--spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize,
+                "--spring.jpa.properties.hibernate.generate_statistics=false",
+                "--logging.level.root=WARN");
+        orderService = context.getBean(OrderService.class);
+    }
+    
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+    
+    @Benchmark
+    public Order createOrder() {
+        return orderService.createOrder(TestFixtures.order("Batch Customer", ITEMS));
+    }
+}
@@ -0,0 +1,45 @@
+package uk.co.nationalninesgolf.api.service;
+
+import org.junit.jupiter.api.Test;
+import uk.co.nationalninesgolf.api.repository.EntryRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reconciling never overwrites a payment that lands while the database is being counted
+ */
+class PaidEntryCounterTest {
+    
+    private final EntryRepository entryRepository = mock(EntryRepository.class);
+    private final PaidEntryCounter counter = new PaidEntryCounter(entryRepository);
+    
+    @Test
+    void reconcileReplacesCountsWithDatabaseTotals() {
+        when(entryRepository.countPaidEntriesGroupedByEvent()).thenReturn(List.<Object[]>of(new Object[] {"MENS", 3L}));
+        counter.onEntryPaid(new EntryPaidEvent(1L, "MENS"));
+        
+        counter.reconcile();
+        
+        assertThat(counter.get("MENS")).isEqualTo(3);
+    }
+    
+    @Test
+    void paymentDuringReconcileIsKept() {
+        counter.onEntryPaid(new EntryPaidEvent(1L, "MENS"));
+        // Counted before the new payment committed
+        when(entryRepository.countPaidEntriesGroupedByEvent()).thenAnswer(query -> {
+            counter.onEntryPaid(new EntryPaidEvent(2L, "MENS"));
+            counter.onEntryPaid(new EntryPaidEvent(3L, "LADIES"));
+            return List.<Object[]>of(new Object[] {"MENS", 1L});
+        });
+        
+        counter.reconcile();
+        
+        assertThat(counter.get("MENS")).isEqualTo(2);
+        assertThat(counter.get("LADIES")).isEqualTo(1);
+    }
+}
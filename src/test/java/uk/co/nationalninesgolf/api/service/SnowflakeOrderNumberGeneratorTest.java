@@ -0,0 +1,123 @@
+package uk.co.nationalninesgolf.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.co.nationalninesgolf.api.repository.OrderNumberNodeRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Order numbers stay unique under contention, across instances sharing the database and across restarts
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SnowflakeOrderNumberGeneratorTest {
+    
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 500_000;
+    
+    @Autowired
+    private OrderNumberNodeRepository nodeRepository;
+    
+    @Test
+    void millionsOfIdsFromManyThreadsAreUniqueAndIncreasing() throws Exception {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(7);
+        
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    long[] ids = new long[PER_THREAD];
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+            
+            long[] all = new long[THREADS * PER_THREAD];
+            int offset = 0;
+            for (Future<long[]> result : results) {
+                long[] ids = result.get();
+                for (int i = 1; i < ids.length; i++) {
+                    assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+                }
+                System.arraycopy(ids, 0, all, offset, ids.length);
+                offset += ids.length;
+            }
+            
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                assertThat(all[i]).as("duplicate order number %s", all[i]).isNotEqualTo(all[i - 1]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    void runningInstancesNeverShareANode() {
+        SnowflakeOrderNumberGenerator first = leased(-1);
+        SnowflakeOrderNumberGenerator second = leased(-1);
+        try {
+            long firstNode = nodeOf(first.nextId());
+            assertThat(nodeOf(second.nextId())).isNotEqualTo(firstNode);
+            
+            // A configured node already leased by a running instance fails startup
+            assertThatThrownBy(() -> leased(firstNode))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("leased by another running instance");
+        } finally {
+            first.releaseNode();
+            second.releaseNode();
+        }
+    }
+    
+    @Test
+    void restartResumesAboveEverythingIssued() {
+        SnowflakeOrderNumberGenerator before = leased(-1);
+        // Far more than one millisecond's sequence, so the timestamp carries ahead of the clock
+        long last = 0;
+        for (int i = 0; i < 200_000; i++) {
+            last = before.nextId();
+        }
+        long node = nodeOf(last);
+        before.releaseNode();
+        
+        SnowflakeOrderNumberGenerator after = leased(node);
+        try {
+            assertThat(after.nextId()).isGreaterThan(last);
+        } finally {
+            after.releaseNode();
+        }
+    }
+    
+    private SnowflakeOrderNumberGenerator leased(long nodeId) {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(nodeRepository, nodeId);
+        ReflectionTestUtils.setField(generator, "leaseTtl", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(generator, "reserveAhead", Duration.ofMillis(10));
+        generator.leaseNode();
+        return generator;
+    }
+    
+    private static long nodeOf(long id) {
+        return (id >>> 12) & 1023;
+    }
+}
@@ -0,0 +1,169 @@
+package uk.co.nationalninesgolf.api.service;
+
+import com.stripe.param.checkout.SessionCreateParams;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import uk.co.nationalninesgolf.api.StripeStandIn;
+import uk.co.nationalninesgolf.api.model.Entry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static uk.co.nationalninesgolf.api.TestFixtures.entry;
+import static uk.co.nationalninesgolf.api.TestFixtures.newEvent;
+import static uk.co.nationalninesgolf.api.TestFixtures.runTogether;
+
+/**
+ * Checkout against a slow Stripe: calls past the read timeout open the circuit, after which
+ * checkout answers 503 without calling Stripe, and a full bulkhead turns the overflow away with 503
+ */
+@SpringBootTest(properties = {
+    "stripe.checkout.read-timeout=PT0.5S",
+    "stripe.checkout.max-concurrent-calls=1",
+    "stripe.checkout.max-wait=PT0.05S",
+    "stripe.checkout.circuit.sliding-window=2",
+    "stripe.checkout.circuit.minimum-calls=2",
+    "stripe.checkout.circuit.open-duration=PT1H"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+// A fresh circuit breaker, bulkhead and meters for each test
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class StripeCheckoutGatewayTest {
+    
+    private static StripeStandIn stripe;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private StripeCheckoutGateway gateway;
+    
+    @Autowired
+    private EntryService entryService;
+    
+    @Autowired
+    private EventCatalog eventCatalog;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @BeforeAll
+    static void startStripe() throws IOException {
+        stripe = new StripeStandIn();
+    }
+    
+    @AfterAll
+    static void stopStripe() {
+        stripe.close();
+    }
+    
+    @DynamicPropertySource
+    static void stripeProperties(DynamicPropertyRegistry registry) {
+        registry.add("stripe.api.key", () -> "sk_test_gateway");
+        registry.add("stripe.api.base", () -> stripe.url());
+    }
+    
+    @BeforeEach
+    void resetStripe() {
+        stripe.reset();
+    }
+    
+    @Test
+    void timeoutsOpenTheCircuitAndCheckoutFailsFast() throws Exception {
+        String event = newEvent(eventCatalog, "GATEWAY", 10);
+        Entry pending = entryService.createEntry(entry(event, "Pending " + System.nanoTime())).orElseThrow();
+        stripe.latency(Duration.ofSeconds(2));
+        
+        // Each times out after read-timeout; the entry is withdrawn
+        for (int i = 0; i < 2; i++) {
+            postEntry(event, "Timeout " + i)
+                .andExpect(status().isInternalServerError());
+        }
+        assertThat(stripe.requests()).isEqualTo(2);
+        assertThat(gateway.isAvailable()).isFalse();
+        
+        // Refused before the entry is taken, and without calling Stripe
+        postEntry(event, "Refused")
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string("Retry-After", "30"))
+            .andExpect(jsonPath("$.error").value("Payment system is busy. Please try again shortly."));
+        assertThat(entryService.findByEvent(event)).extracting(Entry::getClubName)
+            .hasSize(3)
+            .noneMatch(club -> club.startsWith("Refused"));
+        
+        // A payer resuming checkout goes through the gateway and is refused there
+        mockMvc.perform(post("/api/entries/" + pending.getId() + "/checkout"))
+            .andExpect(status().isServiceUnavailable());
+        assertThatThrownBy(() -> gateway.createSession(params()))
+            .isInstanceOf(PaymentUnavailableException.class)
+            .hasMessage("Payment provider unavailable");
+        assertThat(stripe.requests()).isEqualTo(2);
+        
+        assertThat(meterRegistry.get("stripe.checkout.rejected").tag("reason", "circuit-open").counter().count())
+            .isEqualTo(2);
+        assertThat(meterRegistry.get("stripe.checkout.latency").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("resilience4j.circuitbreaker.state")
+            .tag("name", "stripe-checkout").tag("state", "open").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("resilience4j.circuitbreaker.calls")
+            .tag("name", "stripe-checkout").tag("kind", "failed").timer().count()).isEqualTo(2);
+    }
+    
+    @Test
+    void fullBulkheadTurnsCheckoutAway() throws Exception {
+        String event = newEvent(eventCatalog, "GATEWAY", 10);
+        stripe.latency(Duration.ofMillis(300));
+        
+        // Two payers at once against one permit - the second can't get it within max-wait
+        List<Callable<Integer>> payers = List.of(
+            () -> postEntry(event, "First").andReturn().getResponse().getStatus(),
+            () -> postEntry(event, "Second").andReturn().getResponse().getStatus());
+        List<Integer> statuses = runTogether(2, payers);
+        
+        assertThat(statuses).containsExactlyInAnyOrder(200, 503);
+        assertThat(stripe.requests()).isEqualTo(1);
+        assertThat(meterRegistry.get("stripe.checkout.rejected").tag("reason", "bulkhead").counter().count())
+            .isEqualTo(1);
+        assertThat(gateway.isAvailable()).isTrue();
+        assertThat(meterRegistry.get("resilience4j.bulkhead.available.concurrent.calls")
+            .tag("name", "stripe-checkout").gauge().value()).isEqualTo(1);
+    }
+    
+    private ResultActions postEntry(String event, String club) throws Exception {
+        return mockMvc.perform(post("/api/entries")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("""
+                {"event": "%s", "clubName": "%s %d", "player1Name": "Player One", "player1Email": "one@example.com",
+                 "player1Handicap": 5, "player2Name": "Player Two", "player2Email": "two@example.com",
+                 "player2Handicap": 7, "contactPhone": "01234 567890", "entryFee": 10}
+                """.formatted(event, club, System.nanoTime())));
+    }
+    
+    private static SessionCreateParams params() {
+        return SessionCreateParams.builder()
+            .setMode(SessionCreateParams.Mode.PAYMENT)
+            .setSuccessUrl("https://example.com/success")
+            .build();
+    }
+}
@@ -0,0 +1,104 @@
+package uk.co.nationalninesgolf.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import uk.co.nationalninesgolf.api.model.Entry;
+import uk.co.nationalninesgolf.api.repository.EntryRepository;
+import uk.co.nationalninesgolf.api.repository.OutboxEmailRepository;
+import uk.co.nationalninesgolf.api.repository.WebhookInboxRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.co.nationalninesgolf.api.TestFixtures.entry;
+import static uk.co.nationalninesgolf.api.TestFixtures.newEvent;
+import static uk.co.nationalninesgolf.api.TestFixtures.runTogether;
+import static uk.co.nationalninesgolf.api.TestFixtures.stripeSignature;
+
+/**
+ * Stripe redelivers webhooks, sometimes many at once - however many copies arrive, a payment is
+ * stored once, marked paid once and confirmed by email once
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class StripeWebhookReplayTest {
+    
+    private static final int DELIVERIES = 2_000;
+    private static final int THREADS = 32;
+    
+    @Autowired
+    private StripeService stripeService;
+    
+    @Autowired
+    private WebhookInboxWorker inboxWorker;
+    
+    @Autowired
+    private EntryService entryService;
+    
+    @Autowired
+    private EventCatalog eventCatalog;
+    
+    @Autowired
+    private EntryRepository entryRepository;
+    
+    @Autowired
+    private WebhookInboxRepository inboxRepository;
+    
+    @Autowired
+    private OutboxEmailRepository outboxRepository;
+    
+    @Test
+    void concurrentReplaysOfOneEventPayOnceAndEmailOnce() throws Exception {
+        String club = "Replay Club " + System.nanoTime();
+        Entry entry = entryService.createEntry(entry(newEvent(eventCatalog, "REPLAY", 10), club)).orElseThrow();
+        String eventId = "evt_replay_" + entry.getId();
+        String payload = checkoutCompleted(eventId, entry.getId());
+        
+        runTogether(THREADS, DELIVERIES, () -> stripeService.handleWebhook(payload, stripeSignature(payload)));
+        assertThat(inboxRepository.findAll())
+            .filteredOn(stored -> stored.getStripeEventId().equals(eventId))
+            .hasSize(1);
+        
+        // Workers on several instances draining at once
+        runTogether(THREADS, 4, inboxWorker::drain);
+        // ...and late copies once it has been processed
+        runTogether(THREADS, 100, () -> stripeService.handleWebhook(payload, stripeSignature(payload)));
+        inboxWorker.drain();
+        
+        Entry paid = entryRepository.findById(entry.getId()).orElseThrow();
+        assertThat(paid.getPaymentStatus()).isEqualTo(Entry.PaymentStatus.PAID);
+        assertThat(paid.getStripePaymentIntentId()).isEqualTo("pi_replay_" + entry.getId());
+        assertThat(emailsAbout(club)).isEqualTo(3); // confirmation to each player + admin notification
+    }
+    
+    @Test
+    void distinctEventsForTheSamePaymentEmailOnce() throws Exception {
+        String club = "Replay Club " + System.nanoTime();
+        Entry entry = entryService.createEntry(entry(newEvent(eventCatalog, "REPLAY_DISTINCT", 10), club)).orElseThrow();
+        
+        // Different event IDs reporting the same completed checkout
+        for (int i = 0; i < 5; i++) {
+            String payload = checkoutCompleted("evt_distinct_" + entry.getId() + "_" + i, entry.getId());
+            stripeService.handleWebhook(payload, stripeSignature(payload));
+        }
+        runTogether(THREADS, 4, inboxWorker::drain);
+        
+        assertThat(entryRepository.findById(entry.getId()).orElseThrow().getPaymentStatus())
+            .isEqualTo(Entry.PaymentStatus.PAID);
+        assertThat(emailsAbout(club)).isEqualTo(3);
+    }
+    
+    private long emailsAbout(String club) {
+        return outboxRepository.findAll().stream()
+            .filter(email -> email.getBody().contains(club))
+            .count();
+    }
+    
+    private static String checkoutCompleted(String eventId, Long entryId) {
+        return """
+            {"id": "%s", "object": "event", "api_version": "2023-10-16", "type": "checkout.session.completed",
+             "data": {"object": {"id": "cs_replay_%d", "object": "checkout.session", "payment_intent": "pi_replay_%d",
+              "metadata": {"type": "entry", "entry_id": "%d"}}}}
+            """.formatted(eventId, entryId, entryId, entryId);
+    }
+}